@@ -1,18 +1,22 @@
 from lxml import html
+import os
 import re
 import requests
 
 
 class WikipediaScraper:
     RANDOM_ARTICLE_URL = "https://en.wikipedia.org/wiki/Special:Random"
-    WORD_REGEX = r"\b([a-zA-Z]{5})\b"
+    # Word lengths to count. Should match the lengths the solver plays (4 to 11).
+    MIN_WORD_LENGTH = int(os.environ.get("MIN_WORD_LENGTH", 5))
+    MAX_WORD_LENGTH = int(os.environ.get("MAX_WORD_LENGTH", 5))
+    WORD_REGEX = r"\b([a-zA-Z]{%d,%d})\b" % (MIN_WORD_LENGTH, MAX_WORD_LENGTH)
     DIV_CONTAINER = '//div[@class="mw-content-ltr mw-parser-output"]'
 
     # TODO: Filter out proper nouns. If a word is capitalized
     # TODO: in the middle of a sentence, filter out.
     PROPER_NONE_REGEX = None
 
-    # Find a random article from Wikipedia and scrape it for five-letter words.
+    # Find a random article from Wikipedia and scrape it for words of the configured lengths.
     # Return a Tuple containing the URL of the article and the word counts.
     def scrape_article_words(self):
         url, html_content = self.__fetch_html(self.RANDOM_ARTICLE_URL)
@@ -32,7 +36,7 @@ class WikipediaScraper:
             print("Request to {} failed with status: {}".format(url, response.status_code))
             return None
 
-    # Given a paragraph of text, parse an array of valid five-letter words.
+    # Given a paragraph of text, parse an array of valid words.
     def __parse_words_from_paragraph(self, paragraph):
         valid_words = []
         word_matches = re.findall(self.WORD_REGEX, paragraph)
@@ -41,7 +45,7 @@ class WikipediaScraper:
             valid_words.extend(formatted_words)
         return valid_words
 
-    # Given raw HTML, parse into a list of valid five-letter words.
+    # Given raw HTML, parse into a list of valid words.
     def __parse_content_for_words(self, page):
         dom = html.fromstring(page)
         paragraphs = dom.xpath(WikipediaScraper.DIV_CONTAINER + '/p/text()')
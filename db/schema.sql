@@ -17,6 +17,17 @@ CREATE TABLE IF NOT EXISTS wordle_solver.t_invalid_words (
     word VARCHAR(16) NOT NULL UNIQUE 
 );
 
+-- Precomputed suggestions for early turns. A second_pattern of -1
+-- marks a second guess, otherwise the row holds a third guess.
+CREATE TABLE IF NOT EXISTS wordle_solver.t_opening_book (
+    id SERIAL PRIMARY KEY,
+    opening_word VARCHAR(16) NOT NULL,
+    first_pattern SMALLINT NOT NULL,
+    second_pattern SMALLINT NOT NULL DEFAULT -1,
+    next_guess VARCHAR(16) NOT NULL,
+    UNIQUE (opening_word, first_pattern, second_pattern)
+);
+
 CREATE INDEX word_idx ON wordle_solver.t_word_counts(word);
 CREATE INDEX url_idx ON wordle_solver.t_scraped_urls(url);
 CREATE INDEX invalid_word_idk ON wordle_solver.t_invalid_words(word);
\ No newline at end of file
@@ -0,0 +1,276 @@
+package com.dparsons.wordle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * Recommends a guess within a time budget, however large the dictionary.
+ * Starts from the cheap frequency-ranked pick, {@link Dictionary#getNextWord},
+ * and then scores the surviving words as guesses, most frequent first, until
+ * the deadline. A guess scores better the fewer words are expected to survive
+ * it, which is the sum of the squares of how many words give each feedback
+ * pattern, over the number of words.
+ *
+ * With more survivors than -Dwordle.sampling.threshold (20000), scoring each
+ * guess against all of them costs too much, so guesses are scored against a
+ * frequency-weighted {@link SurvivorSample} instead, with a confidence margin.
+ * Once every candidate has been scored, the sample is doubled for the guesses
+ * still too close to the best one to call, until one is clearly ahead, the
+ * sample reaches -Dwordle.sampling.maximum (16384) or time runs out.
+ *
+ * Candidates are the survivors, then the rest of the Wikipedia dictionary,
+ * which can't be the answer but can narrow it down better than any survivor
+ * (-Dwordle.recommend.guesses=survivors considers survivors only). Before
+ * scoring, a {@link GuessSpace} drops guesses that can't tell the survivors
+ * apart, and all but the first of any guesses that are bound to split them
+ * the same way. Survivors come first, so they win ties.
+ *
+ * The search can be read from another thread while it runs, so a caller can
+ * take the best result so far at any point. The deadline is checked between
+ * candidates, so a call overruns it by at most the time to score one guess.
+ */
+public class AnytimeRecommender
+{
+    private static final Histogram CANDIDATES_SCORED = Metrics.histogram("recommend.anytime.candidates");
+    private static final Counter DEADLINES_REACHED = Metrics.counter("recommend.anytime.deadlines");
+    private static final Histogram SAMPLE_SIZES = Metrics.histogram("recommend.anytime.sample.size");
+
+    private static final int SAMPLING_THRESHOLD = Integer.getInteger("wordle.sampling.threshold", 20000);
+    private static final int INITIAL_SAMPLE_SIZE = Integer.getInteger("wordle.sampling.size", 1024);
+    private static final int MAXIMUM_SAMPLE_SIZE = Integer.getInteger("wordle.sampling.maximum", 16384);
+
+    private static final boolean SURVIVORS_ONLY = "survivors".equalsIgnoreCase(System.getProperty("wordle.recommend.guesses"));
+
+    private final Dictionary dictionary;
+    private final Random random;
+
+    // The best result so far, published for readers on other threads.
+    private volatile Recommendation best;
+
+    public AnytimeRecommender(final Dictionary dictionary)
+    {
+        this(dictionary, new Random());
+    }
+
+    public AnytimeRecommender(final Dictionary dictionary, final Random random)
+    {
+        this.dictionary = dictionary;
+        this.random = random;
+    }
+
+    /**
+     * Search until the budget runs out or every candidate is scored, and
+     * return the best guess found.
+     */
+    public Recommendation recommend(final Duration budget)
+    {
+        return recommendBy(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * Search until the deadline, a System.nanoTime() value, and return the best guess found.
+     */
+    public Recommendation recommendBy(final long deadlineNanos)
+    {
+        final int survivorCount = this.dictionary.getSurvivorCount();
+        final int candidateCount = SURVIVORS_ONLY ? survivorCount : this.dictionary.getGuessCount();
+        this.best = new Recommendation(this.dictionary.getNextWord(), 0, candidateCount, Double.NaN, 0, 0, survivorCount <= 1);
+        if (survivorCount <= 1)
+        {
+            return this.best;
+        }
+
+        final SurvivorSample sample = survivorCount > SAMPLING_THRESHOLD
+                ? this.dictionary.sample(INITIAL_SAMPLE_SIZE, this.random)
+                : null;
+        final Search search = new Search(candidateCount, deadlineNanos, sample);
+        if (SURVIVORS_ONLY)
+        {
+            this.dictionary.forEachWord(search);
+        }
+        else
+        {
+            this.dictionary.forEachGuess(search);
+        }
+        if (sample != null)
+        {
+            search.refine();
+            SAMPLE_SIZES.record(sample.size());
+        }
+
+        CANDIDATES_SCORED.record(search.scored);
+        if (!search.complete)
+        {
+            DEADLINES_REACHED.increment();
+        }
+        this.best = search._publish(search.complete);
+        return this.best;
+    }
+
+    /**
+     * Return the best result so far. Safe to call from another thread while a search runs.
+     */
+    public Recommendation getBest()
+    {
+        return this.best;
+    }
+
+    /**
+     * A guess scored against a sample, kept so it can be rescored against a larger one.
+     */
+    private static final class Candidate
+    {
+        private final String word;
+        private final byte[] letters;
+        private SurvivorSample.Estimate estimate;
+
+        private Candidate(final String word, final byte[] letters)
+        {
+            this.word = word;
+            this.letters = letters;
+        }
+    }
+
+    /**
+     * Scores each word it visits as a guess, publishing each improvement,
+     * until the deadline passes or no guess could do better.
+     */
+    private class Search implements Predicate<String>
+    {
+        private final int candidateCount;
+        private final long deadlineNanos;
+
+        // Null when scoring exactly.
+        private final SurvivorSample sample;
+        private final List<Candidate> candidates = new ArrayList<>();
+        private final GuessSpace guessSpace = GuessSpace.of(dictionary, dictionary.getSnapshot().getWikipediaCorpus().wordLength());
+
+        private int scored = 0;
+        private String bestWord = best.getWord();
+        private double bestExpected = Double.NaN;
+        private double bestMargin = 0;
+        private boolean complete = true;
+
+        private Search(final int candidateCount, final long deadlineNanos, final SurvivorSample sample)
+        {
+            this.candidateCount = candidateCount;
+            this.deadlineNanos = deadlineNanos;
+            this.sample = sample;
+        }
+
+        @Override
+        public boolean test(final String word)
+        {
+            if (_pastDeadline())
+            {
+                complete = false;
+                return false;
+            }
+
+            // Pruned guesses count as covered, as an equivalent or better guess was scored instead.
+            scored++;
+            if (!guessSpace.admit(word))
+            {
+                return true;
+            }
+
+            if (sample == null)
+            {
+                _offer(word, _expectedSurvivors(dictionary.countPatterns(word)), 0);
+                best = _publish(false);
+
+                // A guess that leaves one word for every pattern can't be beaten.
+                return bestExpected > 1.0;
+            }
+
+            final Candidate candidate = new Candidate(word, LetterColumns.encode(word));
+            candidate.estimate = sample.estimate(candidate.letters, dictionary.getScorer());
+            candidates.add(candidate);
+            _offer(word, candidate.estimate.getExpectedSurvivors(), candidate.estimate.getMargin());
+            best = _publish(false);
+            return true;
+        }
+
+        /**
+         * Double the sample and rescore the guesses whose confidence interval
+         * overlaps the best one's, until at most one is left.
+         */
+        private void refine()
+        {
+            List<Candidate> contenders = _contenders(candidates);
+            while (contenders.size() > 1 && sample.size() < MAXIMUM_SAMPLE_SIZE && sample.size() < sample.getSurvivorCount())
+            {
+                if (_pastDeadline())
+                {
+                    complete = false;
+                    return;
+                }
+
+                sample.grow(sample.size());
+                bestExpected = Double.NaN;
+                for (Candidate candidate : contenders)
+                {
+                    candidate.estimate = sample.estimate(candidate.letters, dictionary.getScorer());
+                    _offer(candidate.word, candidate.estimate.getExpectedSurvivors(), candidate.estimate.getMargin());
+                }
+                best = _publish(false);
+                contenders = _contenders(contenders);
+            }
+        }
+
+        private List<Candidate> _contenders(final List<Candidate> scoredCandidates)
+        {
+            double bestUpperBound = Double.MAX_VALUE;
+            for (Candidate candidate : scoredCandidates)
+            {
+                bestUpperBound = Math.min(bestUpperBound, candidate.estimate.getUpperBound());
+            }
+
+            final List<Candidate> contenders = new ArrayList<>();
+            for (Candidate candidate : scoredCandidates)
+            {
+                if (candidate.estimate.getLowerBound() <= bestUpperBound)
+                {
+                    contenders.add(candidate);
+                }
+            }
+            return contenders;
+        }
+
+        private void _offer(final String word, final double expected, final double margin)
+        {
+            if (Double.isNaN(bestExpected) || expected < bestExpected)
+            {
+                bestWord = word;
+                bestExpected = expected;
+                bestMargin = margin;
+            }
+        }
+
+        private Recommendation _publish(final boolean finished)
+        {
+            return new Recommendation(bestWord, scored, candidateCount, bestExpected, bestMargin,
+                    sample != null ? sample.size() : 0, finished);
+        }
+
+        private boolean _pastDeadline()
+        {
+            return System.nanoTime() - deadlineNanos >= 0;
+        }
+    }
+
+    private static double _expectedSurvivors(final int[] patternCounts)
+    {
+        long words = 0;
+        long squares = 0;
+        for (final int count : patternCounts)
+        {
+            words += count;
+            squares += (long) count * count;
+        }
+        return words == 0 ? 0.0 : (double) squares / words;
+    }
+}
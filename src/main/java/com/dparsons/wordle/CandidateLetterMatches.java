@@ -0,0 +1,183 @@
+package com.dparsons.wordle;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates every candidate letter for the next guess in a single pass
+ * over the dictionaries. Each word is tested against the base predicate
+ * once, and its letter counts are then checked against the letters known
+ * to be in the word plus each candidate letter, filling one bucket per
+ * candidate letter with the first word that can supply it.
+ *
+ * This replaces a separate filter and scan for each candidate letter.
+ */
+public class CandidateLetterMatches
+{
+    private final Predicate<String> basePredicate;
+
+    // Letters the next guess must contain, with their multiplicities.
+    private final LetterSignature requiredLetters;
+
+    // Candidate letters as indexes into the alphabet, in priority order.
+    private final int[] candidateLetters;
+
+    // The required letters plus each candidate letter, in the same order.
+    private final LetterSignature[] candidateSignatures;
+
+    // The first matching word for each candidate letter, by priority.
+    private final String[] wikipediaMatches;
+    private final String[] plaintextMatches;
+
+    private int wordsEvaluated = 0;
+
+    public CandidateLetterMatches(final Predicate<String> basePredicate,
+                                  final LetterSignature lettersInWord,
+                                  final List<String> candidateLetters)
+    {
+        this.basePredicate = basePredicate;
+        this.requiredLetters = lettersInWord;
+
+        this.candidateLetters = new int[candidateLetters.size()];
+        this.candidateSignatures = new LetterSignature[candidateLetters.size()];
+        for (int i = 0; i < candidateLetters.size(); i++)
+        {
+            this.candidateLetters[i] = _index(candidateLetters.get(i));
+            this.candidateSignatures[i] = this.requiredLetters.plus(this.candidateLetters[i]);
+        }
+        this.wikipediaMatches = new String[candidateLetters.size()];
+        this.plaintextMatches = new String[candidateLetters.size()];
+    }
+
+    /**
+     * Evaluate a Wikipedia word, filling any empty bucket it satisfies.
+     * Words must be offered in order of preference.
+     */
+    public void offerWikipediaWord(final String word)
+    {
+        _offer(word, wikipediaMatches);
+    }
+
+    /**
+     * Evaluate a plaintext word, filling any empty bucket it satisfies.
+     * Words must be offered in order of preference.
+     */
+    public void offerPlaintextWord(final String word)
+    {
+        _offer(word, plaintextMatches);
+    }
+
+    /**
+     * Whether the Wikipedia scan can stop, because the highest priority
+     * letter already has a Wikipedia match and nothing can beat it.
+     */
+    public boolean wikipediaSettled()
+    {
+        return candidateLetters.length == 0 || wikipediaMatches[0] != null;
+    }
+
+    /**
+     * Whether the plaintext scan is unnecessary or can stop, because no
+     * remaining plaintext word could change the best match.
+     */
+    public boolean plaintextSettled()
+    {
+        return _bestIndex() == 0 || candidateLetters.length == 0;
+    }
+
+    /**
+     * Return the match for the highest priority letter that has one,
+     * preferring Wikipedia matches for the same letter. Returns null if
+     * no candidate letter produced a match.
+     */
+    public String getBestMatch()
+    {
+        final int best = _bestIndex();
+        if (best == -1)
+        {
+            return null;
+        }
+        return wikipediaMatches[best] != null ? wikipediaMatches[best] : plaintextMatches[best];
+    }
+
+    /**
+     * Return the match for a single candidate letter, or null if none.
+     */
+    public String getMatch(final String letter)
+    {
+        final int index = _index(letter);
+        for (int i = 0; i < candidateLetters.length; i++)
+        {
+            if (candidateLetters[i] == index)
+            {
+                return wikipediaMatches[i] != null ? wikipediaMatches[i] : plaintextMatches[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the number of words offered so far, across both dictionaries.
+     */
+    public int getWordsEvaluated()
+    {
+        return wordsEvaluated;
+    }
+
+    /**
+     * Return the letters every match must contain, whichever candidate letter it supplies.
+     */
+    public LetterSignature getRequiredLetters()
+    {
+        return requiredLetters;
+    }
+
+    public int getCandidateLetterCount()
+    {
+        return candidateLetters.length;
+    }
+
+    private void _offer(final String word, final String[] matches)
+    {
+        wordsEvaluated++;
+        if (basePredicate != null && !basePredicate.test(word))
+        {
+            return;
+        }
+
+        // The word must contain every letter already known to be in the answer.
+        final long low = LetterSignature.lowOf(word);
+        final long high = LetterSignature.highOf(word);
+        if (!LetterSignature.covers(low, requiredLetters.getLow()) || !LetterSignature.covers(high, requiredLetters.getHigh()))
+        {
+            return;
+        }
+
+        for (int i = 0; i < candidateSignatures.length; i++)
+        {
+            if (matches[i] == null
+                    && LetterSignature.covers(low, candidateSignatures[i].getLow())
+                    && LetterSignature.covers(high, candidateSignatures[i].getHigh()))
+            {
+                matches[i] = word;
+            }
+        }
+    }
+
+    private int _bestIndex()
+    {
+        for (int i = 0; i < candidateLetters.length; i++)
+        {
+            if (wikipediaMatches[i] != null || plaintextMatches[i] != null)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int _index(final String letter)
+    {
+        return letter.charAt(0) - 'a';
+    }
+}
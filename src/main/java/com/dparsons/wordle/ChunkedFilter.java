@@ -0,0 +1,112 @@
+package com.dparsons.wordle;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a filter over an array of words in fixed-size chunks, producing a
+ * bitset of the words that survive (one bit per word, 64 to a long).
+ *
+ * Chunks are a multiple of 64 words, so no two chunks share a long of the
+ * bitset and they can be evaluated on the common ForkJoinPool without any
+ * locking or merge step. A chunk of 4096 words is 20KB of letter columns,
+ * small enough to stay in cache while every guess is scored against it.
+ *
+ * Late in a game only a handful of words survive, and forking would cost
+ * more than the filtering itself. Sets smaller than the parallel threshold
+ * are filtered on the calling thread instead. Both sizes can be tuned with
+ * -Dwordle.filter.chunk.size and -Dwordle.filter.parallel.threshold.
+ */
+final class ChunkedFilter
+{
+    static final int CHUNK_SIZE = Math.max(64, Integer.getInteger("wordle.filter.chunk.size", 4096) & ~63);
+    static final int PARALLEL_THRESHOLD = Integer.getInteger("wordle.filter.parallel.threshold", 32768);
+
+    private static final Counter PARALLEL_RUNS = Metrics.counter("filter.runs.parallel");
+    private static final Counter SEQUENTIAL_RUNS = Metrics.counter("filter.runs.sequential");
+    private static final Counter CHUNKS = Metrics.counter("filter.chunks");
+
+    /**
+     * Evaluates the words from (inclusive) to (exclusive), setting the bits
+     * of those that survive. Called from several threads at once, with
+     * ranges that never overlap.
+     */
+    @FunctionalInterface
+    interface ChunkEvaluator
+    {
+        void evaluate(int from, int to, long[] survivors);
+    }
+
+    private ChunkedFilter()
+    {
+    }
+
+    static long[] run(final int size, final ChunkEvaluator evaluator)
+    {
+        final long[] survivors = new long[(size + 63) >>> 6];
+        final int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        CHUNKS.add(chunks);
+
+        if (size < PARALLEL_THRESHOLD || chunks < 2 || ForkJoinPool.getCommonPoolParallelism() < 2)
+        {
+            SEQUENTIAL_RUNS.increment();
+            for (int chunk = 0; chunk < chunks; chunk++)
+            {
+                _evaluate(chunk, size, evaluator, survivors);
+            }
+        }
+        else
+        {
+            PARALLEL_RUNS.increment();
+            ForkJoinPool.commonPool().invoke(new ChunkTask(0, chunks, size, evaluator, survivors));
+        }
+        return survivors;
+    }
+
+    private static void _evaluate(final int chunk, final int size, final ChunkEvaluator evaluator, final long[] survivors)
+    {
+        final int from = chunk * CHUNK_SIZE;
+        evaluator.evaluate(from, Math.min(size, from + CHUNK_SIZE), survivors);
+    }
+
+    /**
+     * Splits a range of chunks in half until a single chunk is left.
+     */
+    private static class ChunkTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int firstChunk;
+        private final int lastChunk;
+        private final int size;
+        private final ChunkEvaluator evaluator;
+        private final long[] survivors;
+
+        ChunkTask(final int firstChunk,
+                  final int lastChunk,
+                  final int size,
+                  final ChunkEvaluator evaluator,
+                  final long[] survivors)
+        {
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+            this.size = size;
+            this.evaluator = evaluator;
+            this.survivors = survivors;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (lastChunk - firstChunk == 1)
+            {
+                _evaluate(firstChunk, size, evaluator, survivors);
+                return;
+            }
+
+            final int middle = (firstChunk + lastChunk) >>> 1;
+            invokeAll(new ChunkTask(firstChunk, middle, size, evaluator, survivors),
+                      new ChunkTask(middle, lastChunk, size, evaluator, survivors));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.dparsons.wordle;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter, cheap to increment from many threads.
+ */
+public class Counter
+{
+    private final LongAdder value = new LongAdder();
+
+    public void increment()
+    {
+        if (Metrics.ENABLED)
+        {
+            value.increment();
+        }
+    }
+
+    public void add(final long amount)
+    {
+        if (Metrics.ENABLED)
+        {
+            value.add(amount);
+        }
+    }
+
+    public long get()
+    {
+        return value.sum();
+    }
+
+    public void reset()
+    {
+        value.reset();
+    }
+}
@@ -0,0 +1,28 @@
+package com.dparsons.wordle;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a call to the database.
+ */
+@Name("com.dparsons.wordle.DbCall")
+@Label("Database Call")
+@Category({ "Wordle Solver", "Database" })
+@Description("A call made through WordleDb")
+public class DbCallEvent extends Event
+{
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    int rows;
+
+    DbCallEvent(final String operation)
+    {
+        this.operation = operation;
+    }
+}
@@ -1,6 +1,7 @@
 package com.dparsons.wordle;
 
 import java.sql.*;
+import java.util.List;
 import java.util.Properties;
 import java.util.function.Function;
 
@@ -62,6 +63,56 @@ public class DbClient
         }
     }
 
+    /**
+     * Query the database and hand each row to the consumer as it arrives,
+     * instead of reading the whole result set first. The driver only streams
+     * rows inside a transaction, with a fetch size set. Returns the number of rows.
+     */
+    public int queryEach(final Connection connection,
+                         final String query,
+                         final int fetchSize,
+                         final RowConsumer consumer) throws SQLException
+    {
+        return queryEach(connection, query, List.of(), fetchSize, consumer);
+    }
+
+    /**
+     * Same as above, binding the parameters to the query's placeholders in order.
+     */
+    public int queryEach(final Connection connection,
+                         final String query,
+                         final List<?> parameters,
+                         final int fetchSize,
+                         final RowConsumer consumer) throws SQLException
+    {
+        final boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (final PreparedStatement statement = connection.prepareStatement(query))
+        {
+            for (int i = 0; i < parameters.size(); i++)
+            {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            statement.setFetchSize(fetchSize);
+            int rows = 0;
+            try (final ResultSet resultSet = statement.executeQuery())
+            {
+                while (resultSet.next())
+                {
+                    consumer.accept(resultSet);
+                    rows++;
+                }
+            }
+            connection.commit();
+            return rows;
+        }
+        finally
+        {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
     public <T> void insertSingleQuery(final Connection connection,
                                       final String query,
                                       final String parameter) throws SQLException
@@ -88,6 +139,47 @@ public class DbClient
         }
     }
 
+    /**
+     * Execute the query once for each row of parameters, as a single
+     * batch within a transaction.
+     */
+    public void insertBatch(final Connection connection,
+                            final String query,
+                            final List<Object[]> rows) throws SQLException
+    {
+        final boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (final PreparedStatement statement = connection.prepareStatement(query))
+        {
+            for (Object[] row : rows)
+            {
+                for (int i = 0; i < row.length; i++)
+                {
+                    statement.setObject(i + 1, row[i]);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+        catch (SQLException e)
+        {
+            connection.rollback();
+            throw e;
+        }
+        finally
+        {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowConsumer
+    {
+        void accept(ResultSet row) throws SQLException;
+    }
+
     private static String _buildUrl(final String host, final int port)
     {
         return String.format("jdbc:postgresql://%s:%d/", host, port);
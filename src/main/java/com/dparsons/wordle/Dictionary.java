@@ -1,47 +1,126 @@
 package com.dparsons.wordle;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
- * Represents a collection of varying dictionaries. This object
- * is meant to be mutated (narrowed), as filtering conditions
- * are introduced.
+ * A session's view of a dictionary snapshot. This object is meant to be
+ * mutated (narrowed), as filtering conditions are introduced, but the
+ * snapshot underneath it never changes. Narrowing only replaces the ids
+ * of the surviving words in each dictionary, so views of the same
+ * snapshot are cheap to create and copy.
  */
 public class Dictionary
 {
-    private static final Comparator<Map.Entry<String, Integer>> WORD_COUNTS_DESC =
-            (Map.Entry<String, Integer> wc1, Map.Entry<String, Integer> wc2) ->
-                    wc2.getValue().compareTo(wc1.getValue());
+    private static final Histogram FILTER_TIME = Metrics.histogram("dictionary.filter" + Metrics.NANOS);
+    private static final Histogram PLAINTEXT_SURVIVORS = Metrics.histogram("dictionary.survivors.plaintext");
+    private static final Histogram WIKIPEDIA_SURVIVORS = Metrics.histogram("dictionary.survivors.wikipedia");
+    static final Counter PREDICATE_EVALUATIONS = Metrics.counter("dictionary.predicate.evaluations");
+    private static final Counter GRAPH_FILTERS = Metrics.counter("dictionary.graph.filters");
 
-    // Standard dictionary of words.
-    private List<String> dictionary;
+    private final DictionarySnapshot snapshot;
 
     /*
-     * Wikipedia dictionary including words, and the number of
-     * times they've been found on Wikipedia. Also track a list
-     * of words, sorted by frequency descending.
+     * Ids of the surviving standard dictionary words, in dictionary order.
+     * Null until the first filter, meaning every word in the snapshot, so
+     * nothing the size of the corpus is allocated per session up front.
      */
-    private Map<String, Integer> wikipediaDictionary;
-    private List<String> wikipediaDictionarySorted;
+    private int[] plaintextIds;
 
-    // Holds invalid words that have been ruled out in the past.
-    private final Set<String> invalidWords;
+    // Ids of the surviving Wikipedia words, which keeps them sorted by frequency descending. Null as above.
+    private int[] wikipediaIds;
 
-    private final WordleDb db;
+    // Letters of the surviving words, in the same order as their ids.
+    private LetterColumns plaintextColumns;
+    private LetterColumns wikipediaColumns;
 
-    public Dictionary(final String dictionaryFilename, final WordleDb db)
+    private final FeedbackScorer scorer;
+
+    /*
+     * Letter frequencies over the surviving candidates of both dictionaries.
+     * A word found in both dictionaries is only counted once.
+     */
+    private LetterStatistics letterStatistics;
+
+    // Words Wordle rejected during this session, which are never suggested as guesses.
+    private Set<String> invalidWords = Collections.emptySet();
+
+    public Dictionary(final DictionarySnapshot snapshot)
+    {
+        this(snapshot, FeedbackScorers.get());
+    }
+
+    /**
+     * A dictionary that filters with the given scorer rather than the one selected for the JVM.
+     */
+    Dictionary(final DictionarySnapshot snapshot, final FeedbackScorer scorer)
+    {
+        this.snapshot = snapshot;
+        this.scorer = scorer;
+        this.plaintextIds = null;
+        this.wikipediaIds = null;
+        this.plaintextColumns = snapshot.getPlaintextColumns();
+        this.wikipediaColumns = snapshot.getWikipediaColumns();
+        this.letterStatistics = snapshot.getLetterStatistics().copy();
+    }
+
+    /**
+     * Copy constructor. Filtering replaces the id arrays rather than
+     * mutating them, so the copy can be narrowed independently.
+     */
+    private Dictionary(final Dictionary other)
     {
-        this.db = db;
-        this.invalidWords = db.getInvalidWords();
-        this.dictionary = _loadPlainDictionary(dictionaryFilename);
-        this.wikipediaDictionary = _loadWikipediaDictionary();
-        this.wikipediaDictionarySorted = _sortWikipediaWords();
+        this.snapshot = other.snapshot;
+        this.scorer = other.scorer;
+        this.plaintextIds = other.plaintextIds;
+        this.wikipediaIds = other.wikipediaIds;
+        this.plaintextColumns = other.plaintextColumns;
+        this.wikipediaColumns = other.wikipediaColumns;
+        this.letterStatistics = other.letterStatistics.copy();
+        this.invalidWords = other.invalidWords;
+    }
+
+    /**
+     * Return a copy of this dictionary that can be filtered without
+     * affecting this one.
+     */
+    public Dictionary copy()
+    {
+        return new Dictionary(this);
+    }
+
+    public DictionarySnapshot getSnapshot()
+    {
+        return this.snapshot;
+    }
+
+    /**
+     * Return the letter frequencies of the words that survived filtering so far.
+     */
+    public LetterStatistics getLetterStatistics()
+    {
+        return this.letterStatistics;
     }
 
     public int getWikipediaWordCount(final String word)
     {
-        return this.wikipediaDictionary.getOrDefault(word, 0);
+        return this.snapshot.getWikipediaWordCount(word);
+    }
+
+    /**
+     * Return the number of surviving words in both dictionaries, counting
+     * a word found in both only once.
+     */
+    public int getSurvivorCount()
+    {
+        return this.letterStatistics.getWordCount();
     }
 
     /**
@@ -49,22 +128,115 @@ public class Dictionary
      */
     public void filter(final DictionaryFilter filter)
     {
-        _filterPlaintextDictionary(filter);
-        _filterWikipediaDictionary(filter);
+        final long start = Metrics.startTimer();
+        final DictionaryFilterEvent event = new DictionaryFilterEvent();
+        event.begin();
+        event.plaintextBefore = _plaintextSize();
+        event.wikipediaBefore = _wikipediaSize();
+
+        if (_canFilterWithGraphs(filter))
+        {
+            _filterWithGraphs(filter);
+        }
+        else
+        {
+            _filterPlaintextDictionary(filter);
+            _filterWikipediaDictionary(filter);
+        }
+
+        if (filter != null && !filter.getInvalidWords().isEmpty())
+        {
+            final Set<String> invalidWords = new HashSet<>(this.invalidWords);
+            invalidWords.addAll(filter.getInvalidWords());
+            this.invalidWords = invalidWords;
+        }
+
+        FILTER_TIME.recordSince(start);
+        event.plaintextAfter = _plaintextSize();
+        event.wikipediaAfter = _wikipediaSize();
+        event.guesses = filter != null ? filter.getGuessCount() : 0;
+        event.commit();
+        PLAINTEXT_SURVIVORS.record(_plaintextSize());
+        WIKIPEDIA_SURVIVORS.record(_wikipediaSize());
+    }
+
+    /**
+     * Return the best-ranked surviving word that would have given every guess
+     * its scores, without narrowing this dictionary: the most frequent Wikipedia
+     * match, or else the first plaintext match. Before the first filter, this
+     * asks the word graphs, which stop at the best match without visiting the
+     * rest. After, the survivors are few, and are scanned in order.
+     */
+    public String findBestMatch(final List<WordGuess> guesses)
+    {
+        final DictionaryFilter filter = new DictionaryFilter(guesses);
+        if (_canFilterWithGraphs(filter))
+        {
+            final LetterConstraints constraints = LetterConstraints.of(guesses, this.snapshot.getWikipediaCorpus().wordLength());
+            final int[] invalidWikipediaIds = _invalidIds(filter, this.snapshot.getWikipediaCorpus());
+            final int wikipediaId = this.snapshot.getWikipediaGraph().best(constraints,
+                    id -> Arrays.binarySearch(invalidWikipediaIds, id) < 0);
+            if (wikipediaId >= 0)
+            {
+                return this.snapshot.getWikipediaWord(wikipediaId);
+            }
+
+            final int[] invalidPlaintextIds = _invalidIds(filter, this.snapshot.getPlaintextCorpus());
+            final int plaintextId = this.snapshot.getPlaintextGraph().best(constraints,
+                    id -> Arrays.binarySearch(invalidPlaintextIds, id) < 0);
+            return plaintextId >= 0 ? this.snapshot.getPlaintextWord(plaintextId) : null;
+        }
+
+        final DictionaryMatches matches = findMatches(filter);
+        final String wikipediaMatch = matches.nextWikipediaMatch(0);
+        return wikipediaMatch != null ? wikipediaMatch : matches.nextPlaintextMatch(0);
     }
 
     /**
-     * Find a list of words from the dictionaries that contain the letters provided.
+     * Return a lazy cursor over the words in the dictionaries that match the filter.
+     * No words are evaluated until the cursor is queried.
      */
     public DictionaryMatches findMatches(final DictionaryFilter filter)
     {
-        final List<String> plaintextMatches = this.dictionary.stream()
-                .filter(filter.getPredicates())
-                .collect(Collectors.toList());
-        final List<String> wikipediaMatches = this.wikipediaDictionarySorted.stream()
-                .filter(filter.getPredicates())
-                .collect(Collectors.toList());
-        return new DictionaryMatches(plaintextMatches, wikipediaMatches);
+        return new DictionaryMatches(this.snapshot, this.plaintextIds, this.wikipediaIds, filter.getPredicates());
+    }
+
+    /**
+     * Scan the dictionaries once, offering each word with at least the given
+     * Wikipedia count to the evaluator, in order of preference. Each scan stops
+     * as soon as the evaluator's best match can no longer change. Before the
+     * first filter, only words containing the required letters are offered,
+     * found through the snapshot's letter signature index.
+     */
+    public void findMatches(final CandidateLetterMatches matches, final int minimumCount)
+    {
+        final int[] wikipediaCandidates =
+                _candidates(this.wikipediaIds, this.snapshot::getWikipediaSignatures, matches.getRequiredLetters());
+        final int wikipediaSize = wikipediaCandidates != null ? wikipediaCandidates.length : _wikipediaSize();
+        for (int i = 0; i < wikipediaSize && !matches.wikipediaSettled(); i++)
+        {
+            final int id = idAt(wikipediaCandidates, i);
+            // Words are sorted by count, so no later word can meet the minimum either.
+            if (this.snapshot.getWikipediaCount(id) < minimumCount)
+            {
+                break;
+            }
+            matches.offerWikipediaWord(this.snapshot.getWikipediaWord(id));
+        }
+
+        final int[] plaintextCandidates =
+                _candidates(this.plaintextIds, this.snapshot::getPlaintextSignatures, matches.getRequiredLetters());
+        final int plaintextSize = plaintextCandidates != null ? plaintextCandidates.length : _plaintextSize();
+        for (int i = 0; i < plaintextSize && !matches.plaintextSettled(); i++)
+        {
+            final int id = idAt(plaintextCandidates, i);
+            if (this.snapshot.getPlaintextCount(id) >= minimumCount)
+            {
+                matches.offerPlaintextWord(this.snapshot.getPlaintextWord(id));
+            }
+        }
+
+        PREDICATE_EVALUATIONS.add(matches.getWordsEvaluated());
     }
 
     /**
@@ -73,113 +245,399 @@ public class Dictionary
      */
     public String getNextWord()
     {
-        if (this.wikipediaDictionarySorted != null && !this.wikipediaDictionarySorted.isEmpty())
+        if (_wikipediaSize() > 0)
         {
-            return wikipediaDictionarySorted.get(0);
+            return this.snapshot.getWikipediaWord(idAt(this.wikipediaIds, 0));
         }
-        else if (this.dictionary != null && !this.dictionary.isEmpty())
+        else if (_plaintextSize() > 0)
         {
-            return this.dictionary.get(0);
+            return this.snapshot.getPlaintextWord(idAt(this.plaintextIds, 0));
         }
 
         return null;
     }
 
     /**
-     * Load the plaintext dictionary from a file.
+     * Visit the surviving words, most frequent first: Wikipedia words by rank,
+     * then the plaintext words that aren't on Wikipedia. Stops as soon as the
+     * visitor returns false, and returns false if it did.
      */
-    private List<String> _loadPlainDictionary(final String filename)
+    public boolean forEachWord(final Predicate<String> visitor)
     {
-        System.out.println("Loading plaintext dictionary...");
-        List<String> dictionary = DictionaryFileParser.parseDictionary(filename);
-        dictionary = _filterInvalidWords(dictionary);
-        System.out.println("Plaintext dictionary loaded. Size: " + dictionary.size() + " words.");
-        return dictionary;
+        for (int i = 0; i < _wikipediaSize(); i++)
+        {
+            if (!visitor.test(this.snapshot.getWikipediaWord(idAt(this.wikipediaIds, i))))
+            {
+                return false;
+            }
+        }
+        for (int i = 0; i < _plaintextSize(); i++)
+        {
+            final int id = idAt(this.plaintextIds, i);
+            if (!this.snapshot.isPlaintextInWikipedia(id) && !visitor.test(this.snapshot.getPlaintextWord(id)))
+            {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
-     * Load the Wikipedia dictionary from the database.
+     * Visit every word worth guessing, most frequent first: the survivors, as
+     * in forEachWord, then the rest of the Wikipedia dictionary. Those can't
+     * be the answer, but can still narrow it down. Words Wordle rejected are
+     * skipped. Stops as soon as the visitor returns false.
      */
-    private Map<String, Integer> _loadWikipediaDictionary()
+    public void forEachGuess(final Predicate<String> visitor)
     {
-        System.out.println("Loading Wikipedia dictionary...");
-        Map<String, Integer> dictionary = this.db.getWikipediaDictionary();
-        dictionary = _filterInvalidWordsMap(dictionary);
-        System.out.println("Wikipedia dictionary loaded. Size: " + dictionary.size() + " words.");
-        return dictionary;
+        if (!forEachWord(visitor) || this.wikipediaIds == null)
+        {
+            return;
+        }
+
+        for (int id = 0; id < this.snapshot.getWikipediaSize(); id++)
+        {
+            final String word = this.snapshot.getWikipediaWord(id);
+            if (Arrays.binarySearch(this.wikipediaIds, id) < 0 && !this.invalidWords.contains(word) && !visitor.test(word))
+            {
+                return;
+            }
+        }
     }
 
     /**
-     * Uses the Wikipedia dictionary - which is a hash of words and their frequency
-     * counts - to produce a list of words sorted by frequency.
+     * Return how many words forEachGuess visits.
      */
-    private List<String> _sortWikipediaWords()
+    public int getGuessCount()
     {
-        final List<Map.Entry<String, Integer>> wordCounts = new ArrayList<>(this.wikipediaDictionary.entrySet());
-        wordCounts.sort(WORD_COUNTS_DESC);
-        return wordCounts.stream()
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        return getSurvivorCount() + this.snapshot.getWikipediaSize() - _wikipediaSize() - _invalidWikipediaWords();
+    }
+
+    private int _invalidWikipediaWords()
+    {
+        return (int) this.invalidWords.stream()
+                .filter(word -> this.snapshot.getWikipediaRank(word) >= 0)
+                .count();
+    }
+
+    /**
+     * Draw a frequency-weighted random sample of the surviving words.
+     */
+    public SurvivorSample sample(final int size, final Random random)
+    {
+        final int[] plaintextOnly = IntStream.range(0, _plaintextSize())
+                .map(i -> idAt(this.plaintextIds, i))
+                .filter(id -> !this.snapshot.isPlaintextInWikipedia(id))
+                .toArray();
+        final SurvivorSample sample = new SurvivorSample(this.snapshot, this.wikipediaIds, _wikipediaSize(), plaintextOnly, random);
+        sample.grow(size);
+        return sample;
+    }
+
+    /**
+     * Return the feedback scorer the dictionary filters with.
+     */
+    FeedbackScorer getScorer()
+    {
+        return this.scorer;
+    }
+
+    /**
+     * Count the surviving words that would give the guess each feedback pattern,
+     * had they been the answer. A word in both dictionaries is only counted once.
+     */
+    public int[] countPatterns(final String guess)
+    {
+        final byte[] letters = LetterColumns.encode(guess);
+        final int[] counts = new int[FeedbackPattern.patternCount(letters.length)];
+
+        final int[] patterns = new int[Math.max(this.wikipediaColumns.size(), this.plaintextColumns.size())];
+        this.scorer.score(letters, this.wikipediaColumns, patterns);
+        for (int i = 0; i < this.wikipediaColumns.size(); i++)
+        {
+            counts[patterns[i]]++;
+        }
+
+        this.scorer.score(letters, this.plaintextColumns, patterns);
+        for (int i = 0; i < this.plaintextColumns.size(); i++)
+        {
+            if (!this.snapshot.isPlaintextInWikipedia(idAt(this.plaintextIds, i)))
+            {
+                counts[patterns[i]]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Whether the filter can be applied by walking the snapshot's word graphs.
+     * Only before the first filter, when every word is still a candidate; after
+     * that, scanning the survivors is cheaper.
+     */
+    private boolean _canFilterWithGraphs(final DictionaryFilter filter)
+    {
+        return filter != null
+                && filter.isBuiltFromGuesses()
+                && this.plaintextIds == null
+                && this.wikipediaIds == null
+                && this.snapshot.hasGraphs();
+    }
+
+    /**
+     * Apply the first filter by walking the word graphs, which only visits
+     * subtrees that can still match. The survivors are far fewer than the
+     * words removed, so the letter statistics are recounted from them.
+     */
+    private void _filterWithGraphs(final DictionaryFilter filter)
+    {
+        final LetterConstraints constraints = LetterConstraints.of(filter.getScoredGuesses(), this.snapshot.getWikipediaCorpus().wordLength());
+
+        this.plaintextIds = _graphMatches(this.snapshot.getPlaintextGraph(), constraints,
+                _invalidIds(filter, this.snapshot.getPlaintextCorpus()));
+        this.wikipediaIds = _graphMatches(this.snapshot.getWikipediaGraph(), constraints,
+                _invalidIds(filter, this.snapshot.getWikipediaCorpus()));
+        this.plaintextColumns = _compactColumns(this.plaintextColumns, this.plaintextIds);
+        this.wikipediaColumns = _compactColumns(this.wikipediaColumns, this.wikipediaIds);
+
+        this.letterStatistics = new LetterStatistics(this.snapshot.getWikipediaCorpus().wordLength());
+        for (int i = 0; i < this.wikipediaIds.length; i++)
+        {
+            this.letterStatistics.add(this.wikipediaColumns, i);
+        }
+        for (int i = 0; i < this.plaintextIds.length; i++)
+        {
+            if (!this.snapshot.isPlaintextInWikipedia(this.plaintextIds[i]))
+            {
+                this.letterStatistics.add(this.plaintextColumns, i);
+            }
+        }
+        GRAPH_FILTERS.increment();
+    }
+
+    /**
+     * Return the ids of the words in the graph matching the constraints, in order, leaving out invalid ids.
+     */
+    private static int[] _graphMatches(final WordGraph graph,
+                                       final LetterConstraints constraints,
+                                       final int[] invalidIds)
+    {
+        final IntStream.Builder ids = IntStream.builder();
+        graph.forEach(constraints, ids::add);
+        return ids.build()
+                .filter(id -> Arrays.binarySearch(invalidIds, id) < 0)
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * Return the sorted ids of the filter's invalid words in the corpus.
+     */
+    private static int[] _invalidIds(final DictionaryFilter filter, final WordCorpus corpus)
+    {
+        return filter.getInvalidWords().stream()
+                .mapToInt(corpus::indexOf)
+                .filter(id -> id >= 0)
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * Compact columns covering every word of the corpus down to the words with the given ids.
+     */
+    private static LetterColumns _compactColumns(final LetterColumns columns, final int[] ids)
+    {
+        final long[] keep = new long[(columns.size() + 63) >>> 6];
+        for (final int id : ids)
+        {
+            keep[id >>> 6] |= 1L << id;
+        }
+        return columns.compact(keep, ids.length);
     }
 
     /**
      * Filter the plaintext dictionary using the conditions in the provided filter.
+     * Words also in the Wikipedia dictionary are left for that dictionary to
+     * remove from the letter statistics, as both are filtered with the same predicate.
      */
     private void _filterPlaintextDictionary(final DictionaryFilter filter)
     {
-        System.out.println("\nFiltering plaintext dictionary...");
-        final int previousSize = this.dictionary.size();
+        if (filter == null || filter.getPredicates() == null)
+        {
+            return;
+        }
+
+        final int size = _plaintextSize();
+        final long[] matches = _match(filter, this.plaintextIds, size, this.plaintextColumns, this.snapshot.getPlaintextCorpus());
 
-        if (filter != null && filter.getPredicates() != null)
+        for (int i = 0; i < size; i++)
         {
-            this.dictionary = this.dictionary.stream()
-                    .filter(filter.getPredicates())
-                    .collect(Collectors.toList());
+            if ((matches[i >>> 6] & (1L << i)) == 0 && !this.snapshot.isPlaintextInWikipedia(idAt(this.plaintextIds, i)))
+            {
+                this.letterStatistics.remove(this.plaintextColumns, i);
+            }
         }
 
-        final int wordsRemoved = previousSize - this.dictionary.size();
-        System.out.println("Plaintext dictionary reduced by " + wordsRemoved + " words.");
-        System.out.println("New plaintext dictionary size: " + this.dictionary.size() + " words.\n");
+        final int survivorCount = _bitCount(matches);
+        this.plaintextIds = _compactIds(this.plaintextIds, matches, survivorCount);
+        this.plaintextColumns = this.plaintextColumns.compact(matches, survivorCount);
     }
 
     /**
      * Filter the Wikipedia dictionary using the conditions in the provided filter.
+     * Filtering the ids in order keeps them sorted.
      */
     private void _filterWikipediaDictionary(final DictionaryFilter filter)
     {
-        System.out.println("\nFiltering Wikipedia dictionary...");
-        final int previousSize = this.wikipediaDictionary.size();
+        if (filter == null || filter.getPredicates() == null)
+        {
+            return;
+        }
+
+        final int size = _wikipediaSize();
+        final long[] matches = _match(filter, this.wikipediaIds, size, this.wikipediaColumns, this.snapshot.getWikipediaCorpus());
+
+        for (int i = 0; i < size; i++)
+        {
+            if ((matches[i >>> 6] & (1L << i)) == 0)
+            {
+                this.letterStatistics.remove(this.wikipediaColumns, i);
+            }
+        }
+
+        final int survivorCount = _bitCount(matches);
+        this.wikipediaIds = _compactIds(this.wikipediaIds, matches, survivorCount);
+        this.wikipediaColumns = this.wikipediaColumns.compact(matches, survivorCount);
+    }
+
+    /**
+     * Return a bitset of which of the given words match the filter. Filters built
+     * from guesses are applied by scoring each guess against every word's letter
+     * columns, which the scorer can do many words at a time. Anything else falls
+     * back to testing the predicate one word at a time. Either way the words are
+     * split into chunks, which large dictionaries evaluate in parallel, so the
+     * predicate must be safe to call from several threads.
+     */
+    private long[] _match(final DictionaryFilter filter,
+                          final int[] ids,
+                          final int size,
+                          final LetterColumns columns,
+                          final WordCorpus corpus)
+    {
+        if (filter.isBuiltFromGuesses())
+        {
+            final List<WordGuess> guesses = filter.getScoredGuesses();
+            final byte[][] letters = new byte[guesses.size()][];
+            for (int g = 0; g < letters.length; g++)
+            {
+                letters[g] = guesses.get(g).getLetters();
+            }
+            final long[] matches = ChunkedFilter.run(size, (from, to, survivors) ->
+            {
+                _setRange(survivors, from, to);
+                int evaluated = 0;
+                for (int g = 0; g < letters.length; g++)
+                {
+                    evaluated += this.scorer.retainMatching(letters[g], guesses.get(g).getPattern(), columns, from, to, survivors);
+                }
+                PREDICATE_EVALUATIONS.add(evaluated);
+            });
+
+            // Look invalid words up by id, rather than comparing them with every survivor.
+            for (String invalidWord : filter.getInvalidWords())
+            {
+                final int id = corpus.indexOf(invalidWord);
+                final int index = id < 0 || ids == null ? id : Arrays.binarySearch(ids, id);
+                if (index >= 0)
+                {
+                    matches[index >>> 6] &= ~(1L << index);
+                }
+            }
+            return matches;
+        }
+
+        final Predicate<String> predicate = filter.getPredicates();
+        return ChunkedFilter.run(size, (from, to, survivors) ->
+        {
+            for (int i = from; i < to; i++)
+            {
+                if (predicate.test(corpus.word(idAt(ids, i))))
+                {
+                    survivors[i >>> 6] |= 1L << i;
+                }
+            }
+            PREDICATE_EVALUATIONS.add(to - from);
+        });
+    }
+
+    /**
+     * Set the bits from (a multiple of 64) up to but excluding to.
+     */
+    private static void _setRange(final long[] bits, final int from, final int to)
+    {
+        for (int i = from; i < to; i += 64)
+        {
+            final int remaining = to - i;
+            bits[i >>> 6] = remaining >= 64 ? -1L : (1L << remaining) - 1;
+        }
+    }
 
-        if (filter != null && filter.getPredicates() != null)
+    /**
+     * Return the ids worth scanning for words with the required letters: the
+     * survivors once filtered, otherwise the matches of the signature index.
+     * Null means every word, as with the id arrays.
+     */
+    private static int[] _candidates(final int[] ids,
+                                     final Supplier<LetterSignatureIndex> signatures,
+                                     final LetterSignature requiredLetters)
+    {
+        if (ids != null || requiredLetters.equals(LetterSignature.EMPTY))
         {
-            this.wikipediaDictionary = this.wikipediaDictionary.entrySet().stream()
-                    .filter(e -> filter.getPredicates().test(e.getKey()))
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-            this.wikipediaDictionarySorted = _sortWikipediaWords();
+            return ids;
         }
+        return signatures.get().idsContaining(requiredLetters);
+    }
 
-        final int wordsRemoved = previousSize - this.wikipediaDictionary.size();
-        System.out.println("Wikipedia dictionary reduced by " + wordsRemoved + " words.");
-        System.out.println("New Wikipedia dictionary size: " + this.wikipediaDictionary.size() + " words.\n");
+    private int _plaintextSize()
+    {
+        return this.plaintextIds != null ? this.plaintextIds.length : this.snapshot.getPlaintextSize();
+    }
+
+    private int _wikipediaSize()
+    {
+        return this.wikipediaIds != null ? this.wikipediaIds.length : this.snapshot.getWikipediaSize();
     }
 
     /**
-     * Filter out all invalid words from the dictionary.
-     * TODO: Fix code redundancy.
+     * Return the id at the given index of the survivors, where null survivors means every id.
      */
-    private List<String> _filterInvalidWords(final List<String> dictionary)
+    static int idAt(final int[] ids, final int index)
+    {
+        return ids != null ? ids[index] : index;
+    }
+
+    private static int _bitCount(final long[] bits)
     {
-        return dictionary.stream()
-                .filter(word -> !this.invalidWords.contains(word))
-                .collect(Collectors.toList());
+        int count = 0;
+        for (final long word : bits)
+        {
+            count += Long.bitCount(word);
+        }
+        return count;
     }
 
-    private Map<String, Integer> _filterInvalidWordsMap(final Map<String, Integer> dictionary)
+    private static int[] _compactIds(final int[] ids, final long[] keep, final int count)
     {
-        return dictionary.entrySet().stream()
-                .filter(entry -> !this.invalidWords.contains(entry.getKey()))
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue));
+        final int[] compacted = new int[count];
+        int next = 0;
+        for (int word = 0; word < keep.length; word++)
+        {
+            long bits = keep[word];
+            while (bits != 0)
+            {
+                compacted[next++] = idAt(ids, (word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return compacted;
     }
 }
@@ -4,24 +4,24 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * Static utility responsible for parsing a dictionary input file
- * into a list of unique five-letter words.
+ * into a list of unique words of a given length.
  */
 public class DictionaryFileParser
 {
-    private static final String VALID_WORD_REGEX = "[a-zA-Z]{5}";
-
-    public static List<String> parseDictionary(final String filename)
+    public static List<String> parseDictionary(final String filename, final int wordLength)
     {
         final Path filePath = Path.of(filename);
+        final Pattern validWord = Pattern.compile("[a-zA-Z]{" + wordLength + "}");
 
         try
         {
             return Files.lines(filePath)
-                    .filter(word -> word.matches(VALID_WORD_REGEX))
+                    .filter(word -> validWord.matcher(word).matches())
                     .map(String::toLowerCase)
                     .collect(Collectors.toList());
         }
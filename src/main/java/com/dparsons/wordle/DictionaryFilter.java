@@ -1,8 +1,10 @@
 package com.dparsons.wordle;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Model containing the predicates used to narrow the dictionary. Ingests
@@ -13,14 +15,23 @@ public class DictionaryFilter
 {
     private final Predicate<String> predicates;
 
+    /*
+     * The guesses the predicate was built from, if any. Lets the dictionary
+     * score the guesses against batches of words instead of testing the
+     * predicate one word at a time.
+     */
+    private final List<WordGuess> guesses;
+
     public DictionaryFilter(final List<WordGuess> guesses)
     {
         this.predicates = _buildAllPredicates(guesses);
+        this.guesses = guesses;
     }
 
     public DictionaryFilter(final Predicate<String> predicates)
     {
         this.predicates = predicates;
+        this.guesses = Collections.emptyList();
     }
 
     /**
@@ -32,33 +43,64 @@ public class DictionaryFilter
      * on a condition to the predicate. Does not mutate the
      * current predicate, only returns a new DictionaryFilter instance.
      */
-    public DictionaryFilter withNextGuess(final List<String> lettersInNextGuess)
+    public DictionaryFilter withNextGuess(final LetterSignature requiredLetters)
     {
         /*
-         * The rationale for this logic - instead of just using String::contains - is with
-         * this we can handle multiple occurrences of the same letter, to ensure the word
-         * contains the right amount of letters (e.x. "a", "e", "e").
+         * Compare letter counts rather than using String::contains, so that multiple
+         * occurrences of the same letter (e.x. "a", "e", "e") require the word to
+         * contain that letter as many times.
          */
-        final Predicate<String> wordContainsRequiredLetters = word -> {
-            // Copy, just to be safe to avoid mutating the parameter (I should confirm we can remove this).
-            String wordCopy = word;
-            for (final String letter : lettersInNextGuess) {
-                final int index = wordCopy.indexOf(letter);
-                if (index != -1) {
-                    wordCopy = wordCopy.substring(0, index) + wordCopy.substring(index + 1);
-                }
-                else {
-                    return false;
-                }
-            }
+        final Predicate<String> newPredicate = this.predicates.and(requiredLetters::isContainedIn);
+        return new DictionaryFilter(newPredicate);
+    }
 
-            // We've removed all the letters we were looking for, so we know the word
-            // contains the letters we need.
-            return true;
-        };
+    /**
+     * Like withNextGuess, but for every candidate letter at once. Returns an
+     * evaluator that scans the dictionary a single time, testing this filter's
+     * predicate once per word, and records the first word that contains the
+     * known letters plus each candidate letter.
+     */
+    public CandidateLetterMatches withCandidateLetters(final LetterSignature lettersInWord,
+                                                       final List<String> candidateLetters)
+    {
+        return new CandidateLetterMatches(this.predicates, lettersInWord, candidateLetters);
+    }
 
-        final Predicate<String> newPredicate = this.predicates.and(wordContainsRequiredLetters);
-        return new DictionaryFilter(newPredicate);
+    public int getGuessCount()
+    {
+        return this.guesses.size();
+    }
+
+    /**
+     * Whether this filter is exactly the guesses it was built from, as opposed
+     * to an arbitrary predicate. If so, the guesses can be used in its place.
+     */
+    public boolean isBuiltFromGuesses()
+    {
+        return !this.guesses.isEmpty();
+    }
+
+    /**
+     * Return the guesses that were scored, and so narrow the dictionary to
+     * words that would produce the same scores.
+     */
+    public List<WordGuess> getScoredGuesses()
+    {
+        return this.guesses.stream()
+                .filter(guess -> !guess.isInvalid())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Return the guesses that Wordle rejected as invalid words, which are
+     * removed from the dictionary.
+     */
+    public Set<String> getInvalidWords()
+    {
+        return this.guesses.stream()
+                .filter(WordGuess::isInvalid)
+                .map(guess -> guess.toString().toLowerCase())
+                .collect(Collectors.toSet());
     }
 
     public Predicate<String> getPredicates()
@@ -94,101 +136,23 @@ public class DictionaryFilter
     }
 
     /**
-     * Build a predicate to be applied to every word in the dictionary.
-     * This involves passing through 1) the letters we definitely know the positions
-     * of, and 2) the letters we know exist in the word but not in the position
-     * they are currently in.
+     * Build a predicate to be applied to every word in the dictionary. A word
+     * passes if it would have produced exactly the scores this guess received,
+     * had it been the answer. This accounts for the letters we know the positions
+     * of, the letters we know exist but not in their current position, and how
+     * many times each letter can occur (for example, a second "e" scored 0 means
+     * the answer has exactly one "e").
+     * If a guess is invalid, we just filter it out.
      */
     private static Predicate<String> _buildPredicate(final WordGuess guess)
     {
-        /*
-         * Build a list of predicates that will be evaluated in a single
-         * pass through the dictionary.
-         */
-        Predicate<String> predicates = null;
-
-
-        /*
-         * Add filters for the word itself, as it has already been guessed.
-         * If a guess is invalid, we want to short circuit and just filter it out.
-         * Don't short circuit if the guess is correct.
-         * TODO: Clean up code duplication.
-         */
         final String word = guess.toString().toLowerCase();
         if (guess.isInvalid())
         {
-            predicates = dictionaryWord -> !dictionaryWord.equalsIgnoreCase(word);
-            return predicates;
-        }
-        else if (!guess.isCorrect())
-        {
-            predicates = dictionaryWord -> !dictionaryWord.equalsIgnoreCase(word);
-        }
-
-        // Next, evaluate the letters for which we know their correct positions.
-        final List<String> correctPositions = guess.getLettersInCorrectPosition();
-        for (int position = 0; position < 5; position++)
-        {
-            final String letter = correctPositions.get(position);
-
-            if (letter != null)
-            {
-                final int start = position;
-                final int end = position + 1;
-                final Predicate<String> predicate = dictionaryWord ->
-                        letter.equals(dictionaryWord.substring(start, end));
-                if (predicates == null)
-                {
-                    predicates = predicate;
-                }
-                else
-                {
-                    predicates = predicates.and(predicate);
-                }
-            }
-        }
-
-        // Next, evaluate the letters for which we know exist, and know that
-        // they don't exist in a certain position.
-        final List<String> incorrectPositions = guess.getLettersInWrongPosition();
-        for (int position = 0; position < 5; position++)
-        {
-            final String letter = incorrectPositions.get(position);
-
-            if (letter != null)
-            {
-                final int start = position;
-                final int end = position + 1;
-                final Predicate<String> predicate = dictionaryWord ->
-                        dictionaryWord.contains(letter) && !(letter.equals(dictionaryWord.substring(start, end)));
-                if (predicates == null)
-                {
-                    predicates = predicate;
-                }
-                else
-                {
-                    predicates = predicates.and(predicate);
-                }
-            }
-        }
-
-        // Next, add a predicate to ensure letters that are completely
-        // incorrect are filtered out when finding matching words.
-        final Set<String> completelyIncorrectLetters = guess.getCompletelyIncorrectLetters();
-        for (String incorrectLetter : completelyIncorrectLetters)
-        {
-            final Predicate<String> predicate = dictionaryWord ->
-                    !dictionaryWord.contains(incorrectLetter);
-            if (predicates != null)
-            {
-                predicates = predicates.and(predicate);
-            }
-            else
-            {
-                predicates = predicate;
-            }
+            return dictionaryWord -> !dictionaryWord.equalsIgnoreCase(word);
         }
 
-        return predicates;
+        final int pattern = guess.getPattern();
+        return dictionaryWord -> FeedbackPattern.score(word, dictionaryWord) == pattern;
     }
 }
@@ -0,0 +1,32 @@
+package com.dparsons.wordle;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for narrowing the dictionary with the guesses so far.
+ */
+@Name("com.dparsons.wordle.DictionaryFilter")
+@Label("Dictionary Filter")
+@Category({ "Wordle Solver", "Dictionary" })
+@Description("Applying a filter to both dictionaries")
+public class DictionaryFilterEvent extends Event
+{
+    @Label("Guesses")
+    int guesses;
+
+    @Label("Plaintext Survivors Before")
+    int plaintextBefore;
+
+    @Label("Plaintext Survivors After")
+    int plaintextAfter;
+
+    @Label("Wikipedia Survivors Before")
+    int wikipediaBefore;
+
+    @Label("Wikipedia Survivors After")
+    int wikipediaAfter;
+}
@@ -0,0 +1,27 @@
+package com.dparsons.wordle;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for loading one source of the dictionary.
+ */
+@Name("com.dparsons.wordle.DictionaryLoad")
+@Label("Dictionary Load")
+@Category({ "Wordle Solver", "Dictionary" })
+@Description("Loading a dictionary source, from a file or the database")
+public class DictionaryLoadEvent extends Event
+{
+    @Label("Source")
+    String source;
+
+    @Label("Rows Read")
+    int rowsRead;
+
+    @Label("Words Loaded")
+    @Description("Rows read, less invalid words")
+    int wordsLoaded;
+}
@@ -1,37 +1,94 @@
 package com.dparsons.wordle;
 
-import java.util.List;
+import java.util.function.Predicate;
 
 /**
- * Simple model containing lists of matching words for
- * multiple dictionaries.
+ * Lazy cursor over the words in multiple dictionaries that match a
+ * predicate. Nothing is evaluated up front; each query scans only as
+ * far as it needs to, and resumes where the previous query of the same
+ * dictionary stopped.
+ *
+ * Wikipedia words are ordered by their counts, descending, so scans of
+ * that dictionary can also stop as soon as counts fall below what the
+ * caller is looking for.
  */
 public class DictionaryMatches
 {
-    private final List<String> plaintextMatches;
+    private final DictionarySnapshot snapshot;
 
-    // Wikipedia word matches are ordered by likeliness.
-    private final List<String> wikipediaMatches;
+    // Ids of the candidate words in each dictionary, or null for all of them. Wikipedia ids are ordered by likeliness.
+    private final int[] plaintextIds;
+    private final int[] wikipediaIds;
+    private final int plaintextSize;
+    private final int wikipediaSize;
 
-    public DictionaryMatches(final List<String> plaintextMatches, final List<String> wikipediaMatches)
+    private final Predicate<String> predicate;
+
+    private int plaintextPosition = 0;
+    private int wikipediaPosition = 0;
+
+    public DictionaryMatches(final DictionarySnapshot snapshot,
+                             final int[] plaintextIds,
+                             final int[] wikipediaIds,
+                             final Predicate<String> predicate)
     {
-        this.plaintextMatches = plaintextMatches;
-        this.wikipediaMatches = wikipediaMatches;
+        this.snapshot = snapshot;
+        this.plaintextIds = plaintextIds;
+        this.wikipediaIds = wikipediaIds;
+        this.plaintextSize = plaintextIds != null ? plaintextIds.length : snapshot.getPlaintextSize();
+        this.wikipediaSize = wikipediaIds != null ? wikipediaIds.length : snapshot.getWikipediaSize();
+        this.predicate = predicate;
     }
 
-    public List<String> getPlaintextMatches()
+    /**
+     * Return the next Wikipedia match with at least the given count, or
+     * null if there is none. Stops at the first word whose count is too low,
+     * as every word after it has a count at least as low.
+     */
+    public String nextWikipediaMatch(final int minimumCount)
     {
-        return plaintextMatches;
+        while (wikipediaPosition < wikipediaSize)
+        {
+            final int id = Dictionary.idAt(wikipediaIds, wikipediaPosition++);
+            if (snapshot.getWikipediaCount(id) < minimumCount)
+            {
+                wikipediaPosition = wikipediaSize;
+                return null;
+            }
+
+            final String word = snapshot.getWikipediaWord(id);
+            if (_test(word))
+            {
+                return word;
+            }
+        }
+        return null;
     }
 
-    public List<String> getWikipediaMatches()
+    /**
+     * Return the next plaintext match whose Wikipedia count is at least
+     * the given count, or null if there is none.
+     */
+    public String nextPlaintextMatch(final int minimumCount)
     {
-        return wikipediaMatches;
+        while (plaintextPosition < plaintextSize)
+        {
+            final int id = Dictionary.idAt(plaintextIds, plaintextPosition++);
+            if (snapshot.getPlaintextCount(id) >= minimumCount)
+            {
+                final String word = snapshot.getPlaintextWord(id);
+                if (_test(word))
+                {
+                    return word;
+                }
+            }
+        }
+        return null;
     }
 
-    public boolean matchesFound()
+    private boolean _test(final String word)
     {
-        return (plaintextMatches != null && plaintextMatches.size() > 0) ||
-                (wikipediaMatches != null && wikipediaMatches.size() > 0);
+        Dictionary.PREDICATE_EVALUATIONS.increment();
+        return predicate.test(word);
     }
 }
@@ -0,0 +1,234 @@
+package com.dparsons.wordle;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+/**
+ * Immutable, versioned copy of every dictionary source. A snapshot is
+ * built once, off the request path, and then shared by every session
+ * that starts while it is current. Sessions narrow their own view of a
+ * snapshot (see {@link Dictionary}) by tracking the ids of the words
+ * that survive, so a snapshot is never modified after it is built.
+ *
+ * Words and counts live in mapped {@link WordCorpus} files rather than
+ * on the heap. Words are identified by their index into the plaintext
+ * or Wikipedia corpus. Wikipedia words are sorted by count, descending,
+ * so their ids are also their rank.
+ *
+ * The version only orders snapshots within one process. The checksum is
+ * taken over the words and counts themselves, so it identifies the same
+ * dictionary across processes, as when a game log is replayed.
+ *
+ * With -Dwordle.dictionary.graph=true, each corpus is also compiled into a
+ * {@link WordGraph}, which sessions use to apply their first filter by
+ * pruned traversal instead of scanning every word.
+ */
+public class DictionarySnapshot
+{
+    static final String PLAINTEXT_CORPUS = "plaintext.corpus";
+    static final String WIKIPEDIA_CORPUS = "wikipedia.corpus";
+
+    private static final boolean GRAPHS_ENABLED = Boolean.getBoolean("wordle.dictionary.graph");
+
+    private final long version;
+    private final long checksum;
+
+    // Standard dictionary of words, with their Wikipedia counts.
+    private final WordCorpus plaintext;
+
+    // Wikipedia words sorted by count, descending.
+    private final WordCorpus wikipedia;
+
+    // Graphs of each corpus, or null if disabled.
+    private final WordGraph plaintextGraph;
+    private final WordGraph wikipediaGraph;
+
+    // Words of each corpus grouped by letter signature, built the first time they're needed.
+    private final Supplier<LetterSignatureIndex> plaintextSignatures;
+    private final Supplier<LetterSignatureIndex> wikipediaSignatures;
+
+    // Letter frequencies over every word, copied by each session before narrowing.
+    private final LetterStatistics letterStatistics;
+
+    public DictionarySnapshot(final long version, final WordCorpus plaintext, final WordCorpus wikipedia)
+    {
+        this.version = version;
+        this.plaintext = plaintext;
+        this.wikipedia = wikipedia;
+        this.checksum = _checksum(plaintext, wikipedia);
+        this.plaintextGraph = GRAPHS_ENABLED ? WordGraph.build(plaintext) : null;
+        this.wikipediaGraph = GRAPHS_ENABLED ? WordGraph.build(wikipedia) : null;
+        this.plaintextSignatures = Suppliers.memoize(() -> LetterSignatureIndex.build(plaintext));
+        this.wikipediaSignatures = Suppliers.memoize(() -> LetterSignatureIndex.build(wikipedia));
+        this.letterStatistics = _buildLetterStatistics();
+    }
+
+    /**
+     * Map the corpus files another process already wrote to the directory.
+     */
+    public static DictionarySnapshot open(final long version, final Path directory)
+    {
+        return new DictionarySnapshot(version,
+                WordCorpus.open(directory.resolve(PLAINTEXT_CORPUS)),
+                WordCorpus.open(directory.resolve(WIKIPEDIA_CORPUS)));
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Return a checksum of every word and count in the snapshot.
+     */
+    public long getChecksum()
+    {
+        return checksum;
+    }
+
+    public int getPlaintextSize()
+    {
+        return plaintext.size();
+    }
+
+    public String getPlaintextWord(final int id)
+    {
+        return plaintext.word(id);
+    }
+
+    /**
+     * Return the Wikipedia count of a plaintext word, or zero if it was
+     * never found on Wikipedia.
+     */
+    public int getPlaintextCount(final int id)
+    {
+        return plaintext.count(id);
+    }
+
+    public int getWordLength()
+    {
+        return wikipedia.wordLength();
+    }
+
+    public int getWikipediaSize()
+    {
+        return wikipedia.size();
+    }
+
+    public String getWikipediaWord(final int id)
+    {
+        return wikipedia.word(id);
+    }
+
+    public int getWikipediaCount(final int id)
+    {
+        return wikipedia.count(id);
+    }
+
+    /**
+     * Return whether a plaintext word is also in the Wikipedia dictionary.
+     */
+    public boolean isPlaintextInWikipedia(final int id)
+    {
+        return plaintext.hasFlag(id, WordCorpus.FLAG_IN_WIKIPEDIA);
+    }
+
+    public int getWikipediaWordCount(final String word)
+    {
+        return wikipedia.countOf(word);
+    }
+
+    /**
+     * Return the word's rank in the Wikipedia dictionary (its id), or -1 if it isn't there.
+     */
+    public int getWikipediaRank(final String word)
+    {
+        return wikipedia.indexOf(word);
+    }
+
+    WordCorpus getPlaintextCorpus()
+    {
+        return plaintext;
+    }
+
+    WordCorpus getWikipediaCorpus()
+    {
+        return wikipedia;
+    }
+
+    boolean hasGraphs()
+    {
+        return plaintextGraph != null && wikipediaGraph != null;
+    }
+
+    WordGraph getPlaintextGraph()
+    {
+        return plaintextGraph;
+    }
+
+    WordGraph getWikipediaGraph()
+    {
+        return wikipediaGraph;
+    }
+
+    LetterSignatureIndex getPlaintextSignatures()
+    {
+        return plaintextSignatures.get();
+    }
+
+    LetterSignatureIndex getWikipediaSignatures()
+    {
+        return wikipediaSignatures.get();
+    }
+
+    LetterColumns getPlaintextColumns()
+    {
+        return plaintext.columns();
+    }
+
+    LetterColumns getWikipediaColumns()
+    {
+        return wikipedia.columns();
+    }
+
+    LetterStatistics getLetterStatistics()
+    {
+        return letterStatistics;
+    }
+
+    private static long _checksum(final WordCorpus plaintext, final WordCorpus wikipedia)
+    {
+        final CRC32C checksum = new CRC32C();
+        plaintext.checksum(checksum);
+        wikipedia.checksum(checksum);
+        return checksum.getValue();
+    }
+
+    /**
+     * Count letter frequencies over every word in the Wikipedia dictionary
+     * and every plaintext word not in the Wikipedia dictionary, so a word
+     * found in both is only counted once.
+     */
+    private LetterStatistics _buildLetterStatistics()
+    {
+        final LetterStatistics statistics = new LetterStatistics(this.wikipedia.wordLength());
+        final LetterColumns wikipediaColumns = this.wikipedia.columns();
+        for (int id = 0; id < this.wikipedia.size(); id++)
+        {
+            statistics.add(wikipediaColumns, id);
+        }
+
+        final LetterColumns plaintextColumns = this.plaintext.columns();
+        for (int id = 0; id < this.plaintext.size(); id++)
+        {
+            if (!this.plaintext.hasFlag(id, WordCorpus.FLAG_IN_WIKIPEDIA))
+            {
+                statistics.add(plaintextColumns, id);
+            }
+        }
+        return statistics;
+    }
+}
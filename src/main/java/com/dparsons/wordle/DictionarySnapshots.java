@@ -0,0 +1,330 @@
+package com.dparsons.wordle;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the current dictionary snapshot. New sessions pin whichever
+ * snapshot is current when they start, and keep using it until they end,
+ * so a refresh never changes the dictionary underneath a game in progress.
+ *
+ * Refreshes reload word counts and invalid words from the database on a
+ * background thread, and swap the new snapshot in atomically once it is
+ * fully built. Nothing here holds onto old snapshots, so each one is
+ * reclaimed by the garbage collector once the last session pinning it ends.
+ *
+ * Snapshots are written as corpus files to -Dwordle.corpus.dir (a temp
+ * directory by default) and mapped from there. Other solver processes on
+ * the same host can set -Dwordle.corpus.shared=true to map the files this
+ * one writes instead of loading from the database themselves; on POSIX
+ * systems replacing a file doesn't disturb the mappings of the old one.
+ *
+ * Each word length has its own snapshot, corpus files and indexes. Five
+ * letters is loaded up front; other lengths are loaded the first time a
+ * game of that length asks for one, so a length nobody plays costs nothing.
+ * Refreshes rebuild every length loaded so far.
+ */
+public class DictionarySnapshots
+{
+    private static final Histogram PLAINTEXT_LOAD_TIME = Metrics.histogram("dictionary.load.plaintext" + Metrics.NANOS);
+    private static final Histogram WIKIPEDIA_LOAD_TIME = Metrics.histogram("dictionary.load.wikipedia" + Metrics.NANOS);
+    private static final Counter SNAPSHOTS_PUBLISHED = Metrics.counter("dictionary.snapshots.published");
+
+    private static final Path CORPUS_DIRECTORY = Path.of(System.getProperty("wordle.corpus.dir",
+            Path.of(System.getProperty("java.io.tmpdir"), "wordle-corpus").toString()));
+    private static final boolean SHARED = Boolean.getBoolean("wordle.corpus.shared");
+
+    private final WordleDb db;
+    private final String dictionaryFilename;
+
+    // The plaintext file doesn't change while running, so each length is only parsed once. Completed once parsed.
+    private final Map<Integer, CompletableFuture<List<String>>> plaintextWords = new ConcurrentHashMap<>();
+
+    // The latest snapshot of each word length asked for so far, completed once its first load is done.
+    private final Map<Integer, CompletableFuture<AtomicReference<DictionarySnapshot>>> current = new ConcurrentHashMap<>();
+    private final AtomicLong nextVersion = new AtomicLong(1);
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "dictionary-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Load the first snapshot, of five-letter words. This blocks, as there is
+     * nothing to serve until it's done.
+     */
+    public DictionarySnapshots(final String dictionaryFilename, final WordleDb db)
+    {
+        this.db = db;
+        this.dictionaryFilename = dictionaryFilename;
+        current();
+    }
+
+    /**
+     * Return the latest snapshot of five-letter words. Sessions should call this once, when they start.
+     */
+    public DictionarySnapshot current()
+    {
+        return current(WordleConstants.DEFAULT_WORD_LENGTH);
+    }
+
+    /**
+     * Return the latest snapshot of words of the given length, loading it
+     * first if no game of that length has been played yet.
+     */
+    public DictionarySnapshot current(final int wordLength)
+    {
+        if (!WordleConstants.isSupportedWordLength(wordLength))
+        {
+            throw new IllegalArgumentException("Word length must be between " + WordleConstants.MINIMUM_WORD_LENGTH
+                    + " and " + WordleConstants.MAXIMUM_WORD_LENGTH + ": " + wordLength);
+        }
+        final CompletableFuture<AtomicReference<DictionarySnapshot>> loaded = current.get(wordLength);
+        return (loaded != null ? _await(loaded) : _loadFirst(wordLength)).get();
+    }
+
+    /**
+     * Load a length for the first time, unless another thread got there
+     * first, in which case wait for its load. The load runs outside the map,
+     * so it doesn't hold up lookups of other lengths. If it fails, the next
+     * game of that length tries again.
+     */
+    private AtomicReference<DictionarySnapshot> _loadFirst(final int wordLength)
+    {
+        final CompletableFuture<AtomicReference<DictionarySnapshot>> loading = new CompletableFuture<>();
+        final CompletableFuture<AtomicReference<DictionarySnapshot>> existing = current.putIfAbsent(wordLength, loading);
+        if (existing != null)
+        {
+            return _await(existing);
+        }
+
+        try
+        {
+            final AtomicReference<DictionarySnapshot> snapshot = new AtomicReference<>(_load(wordLength));
+            loading.complete(snapshot);
+            return snapshot;
+        }
+        catch (RuntimeException e)
+        {
+            current.remove(wordLength, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static <T> T _await(final CompletableFuture<T> loaded)
+    {
+        try
+        {
+            return loaded.join();
+        }
+        catch (CompletionException e)
+        {
+            // The loading thread's exception, which it has also thrown.
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Rebuild the snapshot from the database on a background thread, and
+     * publish it once built. Refreshes run one at a time. If the refresh
+     * fails, it's logged and the future completes exceptionally.
+     */
+    public CompletableFuture<DictionarySnapshot> refreshAsync()
+    {
+        return CompletableFuture.supplyAsync(this::_refresh, executor).whenComplete((snapshot, e) -> {
+            if (e != null)
+            {
+                // Unwrap the CompletionException around what the refresh threw.
+                final Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.out.println("[DictionarySnapshots] Error refreshing the dictionary: " + cause.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Refresh the snapshot on a fixed schedule, for example to pick up
+     * word counts as the analyzer keeps scraping.
+     */
+    public void scheduleRefresh(final long interval, final TimeUnit unit)
+    {
+        executor.scheduleWithFixedDelay(this::_refreshQuietly, interval, interval, unit);
+    }
+
+    /**
+     * Refresh for the schedule. A task that throws is never run again, so a
+     * failed refresh is only logged, and the next one tries again.
+     */
+    private void _refreshQuietly()
+    {
+        try
+        {
+            _refresh();
+        }
+        catch (RuntimeException e)
+        {
+            System.out.println("[DictionarySnapshots] Error refreshing the dictionary: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild every loaded length. If the database is unavailable this throws,
+     * and the current snapshots keep being served.
+     */
+    private DictionarySnapshot _refresh()
+    {
+        for (Map.Entry<Integer, CompletableFuture<AtomicReference<DictionarySnapshot>>> entry : current.entrySet())
+        {
+            // Skip a length still on its first load, which is reading the database already.
+            final AtomicReference<DictionarySnapshot> loaded = entry.getValue().isDone()
+                    && !entry.getValue().isCompletedExceptionally() ? entry.getValue().join() : null;
+            if (loaded != null)
+            {
+                loaded.set(_build(entry.getKey()));
+            }
+        }
+        return current();
+    }
+
+    private DictionarySnapshot _load(final int wordLength)
+    {
+        System.out.println(SHARED
+                ? "Mapping dictionary from " + _corpusDirectory(wordLength) + "..."
+                : "Loading " + wordLength + "-letter Wikipedia dictionary...");
+        final DictionarySnapshot snapshot = _build(wordLength);
+        System.out.println("Wikipedia dictionary loaded. Size: " + snapshot.getWikipediaSize() + " words.");
+        return snapshot;
+    }
+
+    private DictionarySnapshot _build(final int wordLength)
+    {
+        final long version = nextVersion.getAndIncrement();
+        final DictionarySnapshot snapshot;
+        if (SHARED)
+        {
+            snapshot = DictionarySnapshot.open(version, _corpusDirectory(wordLength));
+        }
+        else
+        {
+            final Set<String> invalidWords = db.getInvalidWords();
+            final WordCorpus wikipedia = _loadWikipediaDictionary(wordLength, invalidWords);
+            final WordCorpus plaintext = _writePlainDictionary(wordLength, wikipedia, invalidWords);
+            snapshot = new DictionarySnapshot(version, plaintext, wikipedia);
+        }
+        SNAPSHOTS_PUBLISHED.increment();
+        return snapshot;
+    }
+
+    private static Path _corpusDirectory(final int wordLength)
+    {
+        return CORPUS_DIRECTORY.resolve("length-" + wordLength);
+    }
+
+    /**
+     * Load the plaintext dictionary's words of the given length from a file.
+     */
+    private static List<String> _loadPlainDictionary(final String filename, final int wordLength)
+    {
+        System.out.println("Loading plaintext dictionary...");
+        final long start = Metrics.startTimer();
+        final DictionaryLoadEvent event = new DictionaryLoadEvent();
+        event.begin();
+        final List<String> dictionary = DictionaryFileParser.parseDictionary(filename, wordLength);
+        PLAINTEXT_LOAD_TIME.recordSince(start);
+        event.source = "plaintext";
+        event.rowsRead = dictionary.size();
+        event.wordsLoaded = dictionary.size();
+        event.commit();
+        System.out.println("Plaintext dictionary loaded. Size: " + dictionary.size() + " words.");
+        return dictionary;
+    }
+
+    /**
+     * Return the plaintext words of a length, parsing the file unless another
+     * thread already has, in which case wait for it. Like {@link #_loadFirst(int)},
+     * the parse runs outside the map, and a failed parse is tried again next time.
+     */
+    private List<String> _plaintextWords(final int wordLength)
+    {
+        final CompletableFuture<List<String>> parsing = new CompletableFuture<>();
+        final CompletableFuture<List<String>> existing = this.plaintextWords.putIfAbsent(wordLength, parsing);
+        if (existing != null)
+        {
+            return _await(existing);
+        }
+
+        try
+        {
+            final List<String> words = _loadPlainDictionary(this.dictionaryFilename, wordLength);
+            parsing.complete(words);
+            return words;
+        }
+        catch (RuntimeException e)
+        {
+            this.plaintextWords.remove(wordLength, parsing);
+            parsing.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Write the plaintext words to a corpus, along with their Wikipedia counts.
+     */
+    private WordCorpus _writePlainDictionary(final int wordLength, final WordCorpus wikipedia, final Set<String> invalidWords)
+    {
+        final List<String> words = _plaintextWords(wordLength);
+        try (final WordCorpus.Writer writer = new WordCorpus.Writer(
+                _corpusDirectory(wordLength).resolve(DictionarySnapshot.PLAINTEXT_CORPUS), wordLength))
+        {
+            for (String word : words)
+            {
+                if (!invalidWords.contains(word))
+                {
+                    final int wikipediaId = wikipedia.indexOf(word);
+                    writer.add(word,
+                            wikipediaId >= 0 ? wikipedia.count(wikipediaId) : 0,
+                            wikipediaId >= 0 ? WordCorpus.FLAG_IN_WIKIPEDIA : 0);
+                }
+            }
+            return writer.finish();
+        }
+    }
+
+    /**
+     * Stream the Wikipedia dictionary from the database, most frequent
+     * words first, straight into a corpus file.
+     */
+    private WordCorpus _loadWikipediaDictionary(final int wordLength, final Set<String> invalidWords)
+    {
+        final long start = Metrics.startTimer();
+        final DictionaryLoadEvent event = new DictionaryLoadEvent();
+        event.begin();
+        try (final WordCorpus.Writer writer = new WordCorpus.Writer(
+                _corpusDirectory(wordLength).resolve(DictionarySnapshot.WIKIPEDIA_CORPUS), wordLength))
+        {
+            final int rowsRead = this.db.forEachWordCount(wordLength, (word, count) ->
+            {
+                if (!invalidWords.contains(word))
+                {
+                    writer.add(word, count);
+                }
+            });
+            final WordCorpus dictionary = writer.finish();
+            event.rowsRead = rowsRead;
+            event.wordsLoaded = dictionary.size();
+            return dictionary;
+        }
+        finally
+        {
+            WIKIPEDIA_LOAD_TIME.recordSince(start);
+            event.source = "wikipedia";
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.dparsons.wordle;
+
+/**
+ * Static utility for converting the scores of a guess into a single
+ * base-3 number. Each letter score (0, 1 or 2) is a digit, with the
+ * first letter as the most significant digit, so "00202" reads as
+ * 2 * 9 + 2 = 20. Five letters give 243 possible patterns, and n letters
+ * 3^n, which for the longest words we play, eleven letters, still fits an int.
+ */
+public class FeedbackPattern
+{
+    // Patterns of five-letter words, which are the default, and all the opening book holds.
+    public static final int PATTERN_COUNT = 243;
+
+    // Every letter scored 2, meaning the guess is the answer.
+    public static final int SOLVED = PATTERN_COUNT - 1;
+
+    /**
+     * Return how many patterns words of the given length can receive.
+     */
+    public static int patternCount(final int wordLength)
+    {
+        int count = 1;
+        for (int position = 0; position < wordLength; position++)
+        {
+            count *= 3;
+        }
+        return count;
+    }
+
+    /**
+     * Return the pattern of a correct guess for words of the given length.
+     */
+    public static int solved(final int wordLength)
+    {
+        return patternCount(wordLength) - 1;
+    }
+
+    public static int fromScores(final String scores)
+    {
+        int pattern = 0;
+        for (int position = 0; position < scores.length(); position++)
+        {
+            pattern = pattern * 3 + (scores.charAt(position) - '0');
+        }
+        return pattern;
+    }
+
+    /**
+     * Reference implementation of Wordle scoring: the pattern a guess
+     * receives when the answer is the given word. Letters in the right
+     * position score 2. Remaining letters score 1 while the answer still
+     * has an unmatched occurrence of them, left to right, and 0 after that,
+     * so a guess with two e's against an answer with one e scores only one.
+     */
+    public static int score(final String guess, final String answer)
+    {
+        final int length = guess.length();
+        int matched = 0;
+        for (int position = 0; position < length; position++)
+        {
+            if (guess.charAt(position) == answer.charAt(position))
+            {
+                matched |= 1 << position;
+            }
+        }
+
+        int pattern = 0;
+        for (int position = 0; position < length; position++)
+        {
+            int score = 0;
+            if (guess.charAt(position) == answer.charAt(position))
+            {
+                score = 2;
+            }
+            else
+            {
+                for (int other = 0; other < length; other++)
+                {
+                    if ((matched & (1 << other)) == 0 && guess.charAt(position) == answer.charAt(other))
+                    {
+                        matched |= 1 << other;
+                        score = 1;
+                        break;
+                    }
+                }
+            }
+            pattern = pattern * 3 + score;
+        }
+        return pattern;
+    }
+
+    public static String toScores(final int pattern)
+    {
+        return toScores(pattern, WordleConstants.DEFAULT_WORD_LENGTH);
+    }
+
+    public static String toScores(final int pattern, final int wordLength)
+    {
+        final char[] scores = new char[wordLength];
+        int remaining = pattern;
+        for (int position = wordLength - 1; position >= 0; position--)
+        {
+            scores[position] = (char) ('0' + remaining % 3);
+            remaining /= 3;
+        }
+        return new String(scores);
+    }
+}
@@ -0,0 +1,31 @@
+package com.dparsons.wordle;
+
+/**
+ * Scores a guess against a batch of candidate answers stored as letter
+ * columns. Implementations must agree exactly with
+ * {@link FeedbackPattern#score(String, String)}.
+ */
+public interface FeedbackScorer
+{
+    /**
+     * Write the pattern the guess receives against each candidate into patterns[i].
+     */
+    void score(byte[] guess, LetterColumns candidates, int[] patterns);
+
+    /**
+     * Clear the bit of every candidate in survivors (one bit per candidate,
+     * 64 to a long) for which the guess would not receive the given pattern.
+     * Returns the number of candidates evaluated.
+     */
+    default int retainMatching(byte[] guess, int pattern, LetterColumns candidates, long[] survivors)
+    {
+        return retainMatching(guess, pattern, candidates, 0, candidates.size(), survivors);
+    }
+
+    /**
+     * Same as above, for the candidates from (inclusive) to (exclusive) only.
+     * From must be a multiple of 64, so that callers working on different
+     * ranges never write to the same long of survivors.
+     */
+    int retainMatching(byte[] guess, int pattern, LetterColumns candidates, int from, int to, long[] survivors);
+}
@@ -0,0 +1,47 @@
+package com.dparsons.wordle;
+
+/**
+ * Chooses the feedback scorer for this JVM. The scalar scorer is the default;
+ * -Dwordle.scorer=vector selects the vector scorer when the
+ * jdk.incubator.vector module is available, and falls back to scalar otherwise.
+ * Both are checked against {@link FeedbackPattern#score(String, String)} by
+ * FeedbackScorersTest.
+ */
+public final class FeedbackScorers
+{
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final FeedbackScorer SCORER = _select();
+
+    private FeedbackScorers()
+    {
+    }
+
+    public static FeedbackScorer get()
+    {
+        return SCORER;
+    }
+
+    private static FeedbackScorer _select()
+    {
+        if (!"vector".equalsIgnoreCase(System.getProperty("wordle.scorer")))
+        {
+            return new ScalarFeedbackScorer();
+        }
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty())
+        {
+            System.out.println("[FeedbackScorers] " + VECTOR_MODULE + " isn't available, using the scalar scorer.");
+            return new ScalarFeedbackScorer();
+        }
+
+        try
+        {
+            return new VectorFeedbackScorer();
+        }
+        catch (LinkageError e)
+        {
+            System.out.println("[FeedbackScorers] Vector scorer unavailable, using scalar. Error: " + e.getMessage());
+            return new ScalarFeedbackScorer();
+        }
+    }
+}
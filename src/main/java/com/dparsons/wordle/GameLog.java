@@ -0,0 +1,538 @@
+package com.dparsons.wordle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only binary log of the games played: every guess, the feedback
+ * it got, the suggestion shown for it and how long that took. Enabled with
+ * -Dwordle.gamelog.file; {@link GameReplay} feeds a log back through the
+ * solver.
+ *
+ * Records are buffered in memory and written out when the buffer fills,
+ * and the file is synced every -Dwordle.gamelog.fsync.ms (1000), so a
+ * turn costs a few dozen bytes copied under a lock. A crash loses at most
+ * the last interval; a record cut off part way is ignored when reading,
+ * and truncated when the log is next opened for appending.
+ *
+ * The file starts with a magic number. Each record is a type byte, the
+ * length of its payload as a short, then the payload, so readers can skip
+ * record types they don't know. Words are packed five bits per letter
+ * into a long, and feedback is its base-3 pattern (see {@link WordGuess}).
+ * Games are logged with the checksum of the snapshot they were played on
+ * (see {@link DictionarySnapshot#getChecksum()}).
+ */
+public class GameLog implements Closeable
+{
+    private static final Counter TURNS_LOGGED = Metrics.counter("gamelog.turns");
+    private static final Histogram SYNC_TIME = Metrics.histogram("gamelog.sync" + Metrics.NANOS);
+
+    private static final int MAGIC = 0x57474C31; // "WGL1"
+
+    private static final byte GAME_STARTED = 1;
+    private static final byte TURN = 2;
+    private static final byte GAME_ENDED = 3;
+
+    private static final int HEADER_BYTES = Byte.BYTES + Short.BYTES;
+    private static final int GAME_STARTED_BYTES = Long.BYTES * 3 + Byte.BYTES;
+    private static final int TURN_BYTES = Long.BYTES + Integer.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES;
+    private static final int GAME_ENDED_BYTES = Long.BYTES + Integer.BYTES;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long NO_WORD = -1;
+    private static final int INVALID_PATTERN = -1;
+
+    private static final long SYNC_INTERVAL_MS = Long.getLong("wordle.gamelog.fsync.ms", 1000);
+
+    /**
+     * Logs nothing. Used when no log file is configured, and by replays.
+     */
+    public static final GameLog DISABLED = new GameLog(null);
+
+    private static GameLog shared;
+
+    // Null if disabled.
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ScheduledExecutorService syncExecutor;
+
+    // Set once a failed write can't be undone, after which records are dropped. Guarded by this.
+    private boolean failed;
+
+    // Unique across restarts, as long as the clock doesn't go backwards.
+    private final AtomicLong nextGameId = new AtomicLong(System.currentTimeMillis() << 20);
+
+    private GameLog(final FileChannel channel)
+    {
+        this.channel = channel;
+        if (channel == null)
+        {
+            this.syncExecutor = null;
+            return;
+        }
+
+        this.syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "gamelog-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.syncExecutor.scheduleWithFixedDelay(this::sync, SYNC_INTERVAL_MS, SYNC_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Open a log for appending, writing the header if the file is new. A
+     * record left cut off by a crash is truncated first, so new records
+     * don't follow it.
+     */
+    public static GameLog open(final Path path)
+    {
+        try
+        {
+            final FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            final long end;
+            try
+            {
+                end = _endOfLastRecord(channel, path);
+                if (end < channel.size())
+                {
+                    System.out.println("[GameLog] Truncating " + (channel.size() - end) + " bytes of a cut off record from " + path);
+                    channel.truncate(end);
+                }
+                channel.position(end);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                channel.close();
+                throw e;
+            }
+
+            final GameLog log = new GameLog(channel);
+            if (end == 0)
+            {
+                synchronized (log)
+                {
+                    log.buffer.putInt(MAGIC);
+                }
+            }
+            return log;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Error opening the game log: " + path, e);
+        }
+    }
+
+    /**
+     * Return the length of the log up to the end of its last complete
+     * record, or zero if it doesn't even have a whole header.
+     */
+    private static long _endOfLastRecord(final FileChannel channel, final Path path) throws IOException
+    {
+        if (channel.size() < Integer.BYTES)
+        {
+            return 0;
+        }
+
+        final ByteBuffer log = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (log.getInt() != MAGIC)
+        {
+            throw new IllegalArgumentException("Not a game log: " + path);
+        }
+        while (log.remaining() >= HEADER_BYTES)
+        {
+            final int length = Short.toUnsignedInt(log.getShort(log.position() + Byte.BYTES));
+            if (log.remaining() < HEADER_BYTES + length)
+            {
+                break;
+            }
+            log.position(log.position() + HEADER_BYTES + length);
+        }
+        return log.position();
+    }
+
+    /**
+     * Return the log configured with -Dwordle.gamelog.file, opened on first
+     * use and closed at exit, or the disabled log if there is none.
+     */
+    public static synchronized GameLog shared()
+    {
+        if (shared == null)
+        {
+            final String file = System.getProperty("wordle.gamelog.file");
+            shared = file == null ? DISABLED : open(Path.of(file));
+            if (shared != DISABLED)
+            {
+                final GameLog log = shared;
+                Runtime.getRuntime().addShutdownHook(new Thread(log::close, "gamelog-close"));
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Record the start of a game, and return its id for the records that follow.
+     */
+    public long startGame(final long snapshotChecksum, final int wordLength)
+    {
+        final long gameId = nextGameId.getAndIncrement();
+        if (channel == null)
+        {
+            return gameId;
+        }
+
+        synchronized (this)
+        {
+            _header(GAME_STARTED, GAME_STARTED_BYTES);
+            buffer.putLong(gameId);
+            buffer.putLong(System.currentTimeMillis());
+            buffer.putLong(snapshotChecksum);
+            buffer.put((byte) wordLength);
+        }
+        return gameId;
+    }
+
+    /**
+     * Record a guess, its feedback, and the suggestion shown for it (null if
+     * none), made the given time into the game and taking the given time to suggest.
+     */
+    public void recordTurn(final long gameId,
+                           final long offsetMillis,
+                           final int turn,
+                           final WordGuess guess,
+                           final String suggestion,
+                           final long elapsedNanos)
+    {
+        if (channel == null)
+        {
+            return;
+        }
+
+        synchronized (this)
+        {
+            _header(TURN, TURN_BYTES);
+            buffer.putLong(gameId);
+            buffer.putInt((int) offsetMillis);
+            buffer.putShort((short) turn);
+            buffer.putLong(guess.getPackedWord());
+            buffer.putInt(guess.isInvalid() ? INVALID_PATTERN : guess.getPattern());
+            buffer.putLong(suggestion != null ? WordGuess.pack(suggestion) : NO_WORD);
+            buffer.putLong(elapsedNanos);
+        }
+        TURNS_LOGGED.increment();
+    }
+
+    public void endGame(final long gameId, final long offsetMillis)
+    {
+        if (channel == null)
+        {
+            return;
+        }
+
+        synchronized (this)
+        {
+            _header(GAME_ENDED, GAME_ENDED_BYTES);
+            buffer.putLong(gameId);
+            buffer.putInt((int) offsetMillis);
+        }
+    }
+
+    /**
+     * Write out whatever is buffered and sync the file to disk.
+     */
+    public void sync()
+    {
+        if (channel == null)
+        {
+            return;
+        }
+
+        final long start = Metrics.startTimer();
+        try
+        {
+            synchronized (this)
+            {
+                _drain();
+            }
+            channel.force(false);
+        }
+        catch (IOException e)
+        {
+            System.out.println("[GameLog] Error syncing the game log: " + e.getMessage());
+        }
+        SYNC_TIME.recordSince(start);
+    }
+
+    @Override
+    public void close()
+    {
+        if (channel == null)
+        {
+            return;
+        }
+
+        syncExecutor.shutdown();
+        sync();
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            System.out.println("[GameLog] Error closing the game log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A game read back from a log.
+     */
+    public static final class Game
+    {
+        private final long id;
+        private final long startedAtMillis;
+        private final long snapshotChecksum;
+        private final int wordLength;
+        private final List<Turn> turns = new ArrayList<>();
+        private boolean ended;
+
+        private Game(final long id, final long startedAtMillis, final long snapshotChecksum, final int wordLength)
+        {
+            this.id = id;
+            this.startedAtMillis = startedAtMillis;
+            this.snapshotChecksum = snapshotChecksum;
+            this.wordLength = wordLength;
+        }
+
+        public long getId()
+        {
+            return id;
+        }
+
+        public long getStartedAtMillis()
+        {
+            return startedAtMillis;
+        }
+
+        public long getSnapshotChecksum()
+        {
+            return snapshotChecksum;
+        }
+
+        public int getWordLength()
+        {
+            return wordLength;
+        }
+
+        public List<Turn> getTurns()
+        {
+            return Collections.unmodifiableList(turns);
+        }
+
+        /**
+         * Whether the game's end was logged, rather than the log stopping part way through it.
+         */
+        public boolean isEnded()
+        {
+            return ended;
+        }
+    }
+
+    /**
+     * One guess of a logged game.
+     */
+    public static final class Turn
+    {
+        private final long offsetMillis;
+        private final WordGuess guess;
+        private final String suggestion;
+        private final long elapsedNanos;
+
+        private Turn(final long offsetMillis, final WordGuess guess, final String suggestion, final long elapsedNanos)
+        {
+            this.offsetMillis = offsetMillis;
+            this.guess = guess;
+            this.suggestion = suggestion;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Return how long after the game started the guess was entered.
+         */
+        public long getOffsetMillis()
+        {
+            return offsetMillis;
+        }
+
+        public WordGuess getGuess()
+        {
+            return guess;
+        }
+
+        /**
+         * Return the suggestion shown after this guess, or null if there was none.
+         */
+        public String getSuggestion()
+        {
+            return suggestion;
+        }
+
+        public long getElapsedNanos()
+        {
+            return elapsedNanos;
+        }
+    }
+
+    /**
+     * Read every game in a log, in the order they started.
+     */
+    public static List<Game> read(final Path path)
+    {
+        final ByteBuffer log;
+        try
+        {
+            log = ByteBuffer.wrap(Files.readAllBytes(path));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Error reading the game log: " + path, e);
+        }
+        if (log.remaining() < Integer.BYTES || log.getInt() != MAGIC)
+        {
+            throw new IllegalArgumentException("Not a game log: " + path);
+        }
+
+        final Map<Long, Game> games = new LinkedHashMap<>();
+        try
+        {
+            while (log.remaining() >= HEADER_BYTES)
+            {
+                final byte type = log.get();
+                final int length = Short.toUnsignedInt(log.getShort());
+                if (log.remaining() < length)
+                {
+                    break;
+                }
+
+                final ByteBuffer record = log.slice(log.position(), length);
+                log.position(log.position() + length);
+                _readRecord(type, record, games);
+            }
+        }
+        catch (BufferUnderflowException e)
+        {
+            // A record cut off by a crash. Everything before it is intact.
+        }
+        return new ArrayList<>(games.values());
+    }
+
+    private static void _readRecord(final byte type, final ByteBuffer record, final Map<Long, Game> games)
+    {
+        if (type == GAME_STARTED)
+        {
+            final long gameId = record.getLong();
+            games.put(gameId, new Game(gameId, record.getLong(), record.getLong(), record.get()));
+        }
+        else if (type == TURN)
+        {
+            final Game game = games.get(record.getLong());
+            if (game == null)
+            {
+                return;
+            }
+
+            final long offsetMillis = record.getInt();
+            record.getShort();
+            final String word = WordGuess.unpack(record.getLong(), game.wordLength);
+            final int pattern = record.getInt();
+            final long suggestion = record.getLong();
+            game.turns.add(new Turn(offsetMillis,
+                    pattern == INVALID_PATTERN ? WordGuess.invalid(word) : WordGuess.fromPattern(word, pattern),
+                    suggestion == NO_WORD ? null : WordGuess.unpack(suggestion, game.wordLength),
+                    record.getLong()));
+        }
+        else if (type == GAME_ENDED)
+        {
+            final Game game = games.get(record.getLong());
+            if (game != null)
+            {
+                game.ended = true;
+            }
+        }
+    }
+
+    private void _header(final byte type, final int length)
+    {
+        if (buffer.remaining() < HEADER_BYTES + length)
+        {
+            _drain();
+        }
+        buffer.put(type);
+        buffer.putShort((short) length);
+    }
+
+    /**
+     * Write out the buffered records. If a write fails part way, the file is
+     * cut back to where the records started, so it never holds a torn record
+     * followed by later ones. If even that fails, nothing more is written.
+     */
+    private void _drain()
+    {
+        buffer.flip();
+        long start = -1;
+        try
+        {
+            if (!failed)
+            {
+                start = channel.position();
+                while (buffer.hasRemaining())
+                {
+                    channel.write(buffer);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // Drop the buffered records rather than fail the game.
+            System.out.println("[GameLog] Error writing the game log: " + e.getMessage());
+            _truncate(start);
+        }
+        finally
+        {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Cut the file back to the position the failed write started at, if it got that far.
+     */
+    private void _truncate(final long start)
+    {
+        if (start < 0)
+        {
+            return;
+        }
+
+        try
+        {
+            channel.truncate(start);
+            channel.position(start);
+        }
+        catch (IOException e)
+        {
+            failed = true;
+            System.out.println("[GameLog] Unable to remove a partly written record, no longer logging games: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.dparsons.wordle;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays a game log (see {@link GameLog}) through the current solver, and
+ * reports its throughput, per-turn latency, and every suggestion that differs
+ * from the one originally shown. Run it after a change to see what the
+ * change does to real games.
+ *
+ * Games replay as fast as possible by default. With -Dwordle.replay.pacing=original
+ * each guess waits until the same time into the replay as it was originally
+ * entered, and its latency is measured from then, so a replay that falls
+ * behind shows up in the percentiles. -Dwordle.replay.threads (1) replays
+ * that many games at once.
+ *
+ * Replays don't speculate and aren't logged themselves. A game logged against
+ * a different dictionary snapshot can diverge without any change to the
+ * solver, so those divergences are counted separately.
+ */
+public class GameReplay
+{
+    private static final int THREADS = Integer.getInteger("wordle.replay.threads", 1);
+    private static final boolean ORIGINAL_PACING = "original".equalsIgnoreCase(System.getProperty("wordle.replay.pacing", "max"));
+
+    // Divergences printed in full; the rest are only counted.
+    private static final int DIVERGENCES_SHOWN = 20;
+
+    private final DictionarySnapshots snapshots;
+    private final Map<String, OpeningBook> openingBooks;
+
+    private final Histogram replayedLatency = new Histogram();
+    private final Histogram loggedLatency = new Histogram();
+    private final AtomicInteger turns = new AtomicInteger();
+    private final AtomicInteger divergences = new AtomicInteger();
+    private final AtomicInteger snapshotDivergences = new AtomicInteger();
+    private final List<String> divergencesShown = Collections.synchronizedList(new ArrayList<>());
+
+    // When the replay started, and when the first logged game did, for original pacing.
+    private long replayStartNanos;
+    private long logStartMillis;
+
+    public static void main(String[] args) throws Exception
+    {
+        final String filename = args[0];
+        final List<GameLog.Game> games = GameLog.read(Path.of(args[1]));
+        final WordleDb db = new WordleDb("localhost", 5432, "wordle_solver", "password");
+        final GameReplay replay = new GameReplay(new DictionarySnapshots(filename, db), db.getOpeningBooks());
+        replay.run(games);
+        System.exit(0);
+    }
+
+    public GameReplay(final DictionarySnapshots snapshots, final Map<String, OpeningBook> openingBooks)
+    {
+        this.snapshots = snapshots;
+        this.openingBooks = openingBooks;
+    }
+
+    public void run(final List<GameLog.Game> games) throws Exception
+    {
+        System.out.println("Replaying " + games.size() + " games on " + THREADS + " threads, "
+                + (ORIGINAL_PACING ? "at their original pace" : "as fast as possible") + "...");
+
+        // Load every word length up front, so the first game of each length isn't charged for it.
+        games.stream().mapToInt(GameLog.Game::getWordLength).distinct().forEach(this.snapshots::current);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        this.logStartMillis = games.isEmpty() ? 0 : games.get(0).getStartedAtMillis();
+        this.replayStartNanos = System.nanoTime();
+        final List<Future<?>> results = new ArrayList<>();
+        for (GameLog.Game game : games)
+        {
+            results.add(executor.submit(() -> _replay(game)));
+        }
+        for (Future<?> result : results)
+        {
+            result.get();
+        }
+        final long elapsedNanos = System.nanoTime() - this.replayStartNanos;
+        executor.shutdown();
+
+        _report(games.size(), elapsedNanos);
+    }
+
+    private void _replay(final GameLog.Game game)
+    {
+        final DictionarySnapshot snapshot = this.snapshots.current(game.getWordLength());
+        final SolverSession session = new SolverSession(snapshot, this.openingBooks, null, GameLog.DISABLED);
+        for (GameLog.Turn turn : game.getTurns())
+        {
+            final long start = ORIGINAL_PACING ? _waitUntil(game, turn) : System.nanoTime();
+            final String suggestion = session.applyGuess(turn.getGuess());
+            this.replayedLatency.recordValue(System.nanoTime() - start);
+            this.loggedLatency.recordValue(turn.getElapsedNanos());
+            this.turns.incrementAndGet();
+
+            if (!Objects.equals(suggestion, turn.getSuggestion()))
+            {
+                final boolean sameSnapshot = game.getSnapshotChecksum() == snapshot.getChecksum();
+                (sameSnapshot ? this.divergences : this.snapshotDivergences).incrementAndGet();
+                if (this.divergencesShown.size() < DIVERGENCES_SHOWN)
+                {
+                    this.divergencesShown.add("Game " + game.getId() + ", after " + session.getGuesses()
+                            + ": logged " + turn.getSuggestion() + ", replayed " + suggestion
+                            + (sameSnapshot ? "" : " (logged against snapshot " + Long.toHexString(game.getSnapshotChecksum()) + ")"));
+                }
+            }
+        }
+        session.close();
+    }
+
+    /**
+     * Sleep until the turn's original time into the replay, and return that time.
+     */
+    private long _waitUntil(final GameLog.Game game, final GameLog.Turn turn)
+    {
+        final long dueMillis = game.getStartedAtMillis() - this.logStartMillis + turn.getOffsetMillis();
+        final long dueNanos = this.replayStartNanos + TimeUnit.MILLISECONDS.toNanos(dueMillis);
+        long remaining;
+        while ((remaining = dueNanos - System.nanoTime()) > 0)
+        {
+            try
+            {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while replaying", e);
+            }
+        }
+        return dueNanos;
+    }
+
+    private void _report(final int games, final long elapsedNanos)
+    {
+        final double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nReplayed %d games, %d turns in %.2fs: %.1f games/s, %.1f turns/s%n",
+                games, this.turns.get(), seconds, games / seconds, this.turns.get() / seconds);
+        System.out.println("Latency per turn (ms)   p50      p90      p99      p99.9    max");
+        _printLatency("  replayed", this.replayedLatency);
+        _printLatency("  logged", this.loggedLatency);
+
+        System.out.println("\nDivergent suggestions: " + this.divergences.get()
+                + ", plus " + this.snapshotDivergences.get() + " in games logged against another snapshot");
+        synchronized (this.divergencesShown)
+        {
+            this.divergencesShown.forEach(divergence -> System.out.println("  " + divergence));
+        }
+    }
+
+    private static void _printLatency(final String label, final Histogram histogram)
+    {
+        System.out.printf("%-22s%8.2f %8.2f %8.2f %8.2f %8.2f%n", label,
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(90) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMax() / 1e6);
+    }
+}
@@ -0,0 +1,166 @@
+package com.dparsons.wordle;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Chooses the next guess to suggest, given the guesses made so far and
+ * a dictionary that has already been narrowed by those guesses. Shared
+ * by the interactive solver and the opening book job.
+ */
+public class GuessRecommender
+{
+    private static final int WIKIPEDIA_MATCH_THRESHOLD = 2;
+
+    private static final Histogram RECOMMENDATION_TIME = Metrics.histogram("recommend" + Metrics.NANOS);
+
+    /*
+     * Time budget per recommendation, or zero for none. With a budget, guesses
+     * are chosen by an anytime search over the survivors instead, which stops
+     * at the deadline (see AnytimeRecommender).
+     */
+    private static final Duration BUDGET = Duration.ofMillis(Long.getLong("wordle.recommend.budget.ms", 0));
+
+    /*
+     * Once few enough words survive, look two guesses ahead to minimize the
+     * expected number of guesses left (see LookaheadSearch).
+     */
+    private static final boolean LOOKAHEAD = Boolean.getBoolean("wordle.recommend.lookahead");
+
+    private final Dictionary dictionary;
+
+    public GuessRecommender(final Dictionary dictionary)
+    {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Attempt to recommend the "best" next guess. This will be quite rudimentary to start.
+     * We can assume the dictionary has been narrowed to filter out all words that do
+     * not meet the criteria set by previous guesses.
+     */
+    public String recommend(final List<WordGuess> guesses)
+    {
+        final long start = Metrics.startTimer();
+        final RecommendationEvent event = new RecommendationEvent();
+        event.begin();
+
+        final String recommendation;
+        if (LOOKAHEAD && LookaheadSearch.appliesTo(this.dictionary))
+        {
+            recommendation = _recommendWithLookahead(event);
+        }
+        else
+        {
+            recommendation = BUDGET.isZero() ? _recommend(guesses, event) : _recommendWithinBudget(event);
+        }
+
+        RECOMMENDATION_TIME.recordSince(start);
+        event.turn = guesses.size() + 1;
+        event.suggestion = recommendation;
+        event.commit();
+        return recommendation;
+    }
+
+    private String _recommend(final List<WordGuess> guesses, final RecommendationEvent event)
+    {
+        /* TODO: This assumes the most recent guess is the best guess.
+         * This might not actually be the case.
+         */
+        final WordGuess mostRecentGuess = guesses.get(guesses.size() - 1);
+        final LetterSignature lettersInWord = mostRecentGuess.getLettersInWord();
+
+        /*
+         * TODO: This apparently cannot solve the situation in which a suggestion contains
+         * multiple instances of the same letter. For example, given the following guesses,
+         * it does not suggest "awake" as an option, despite it being the correct answer.
+         *
+         * QUALM - 00200
+         * YEARS - 01200
+         * EXACT - 10200
+         *
+         * At this point, it really should suggest AWAKE, which at the time of writing,
+         * has 38 occurrences in the word count table, far more than the two suggestions
+         * below.
+         *
+         * DIANE - 00202
+         * PHAGE - 00202
+         */
+
+        return Integer.bitCount(mostRecentGuess.getGreenMask() | mostRecentGuess.getYellowMask()) == mostRecentGuess.length() ?
+            this.dictionary.getNextWord() : _selectNextGuess(guesses, lettersInWord, event);
+    }
+
+    private String _recommendWithinBudget(final RecommendationEvent event)
+    {
+        final Recommendation recommendation = new AnytimeRecommender(this.dictionary).recommend(BUDGET);
+        event.candidatesScanned = recommendation.getCandidatesScored();
+        return recommendation.getWord();
+    }
+
+    private String _recommendWithLookahead(final RecommendationEvent event)
+    {
+        final LookaheadSearch.Result result = LookaheadSearch.search(this.dictionary);
+        event.candidatesScanned = (int) Math.min(Integer.MAX_VALUE, result.getNodes());
+        return result.getGuess();
+    }
+
+    /**
+     * Choose a recommendation for the next guess. Every eligible letter is
+     * evaluated in a single scan of the dictionary, and the match for the
+     * most frequent letter wins.
+     *
+     * There's a chance there is technically a match for a letter, but it
+     * doesn't meet the threshold of confidence we're looking for. In that
+     * case, the next letter's match is used.
+     * TODO: There is a huge bias here towards encyclopedic words (e.x. "years").
+     * We probably want to filter the wikipedia dictionary to weigh these less, and
+     * instead prefer words with popular letters.
+     */
+    private String _selectNextGuess(final List<WordGuess> guesses,
+                                    final LetterSignature lettersInWord,
+                                    final RecommendationEvent event)
+    {
+        final List<String> eligibleLetters = _getEligibleLetters(guesses, lettersInWord);
+        final CandidateLetterMatches matches = new DictionaryFilter(guesses)
+                .withCandidateLetters(lettersInWord, eligibleLetters);
+        this.dictionary.findMatches(matches, WIKIPEDIA_MATCH_THRESHOLD);
+        event.lettersTried = matches.getCandidateLetterCount();
+        event.candidatesScanned = matches.getWordsEvaluated();
+        return matches.getBestMatch();
+    }
+
+    /**
+     * Given all previous guesses, return the list of eligible letters, excluding all
+     * letters with a score of zero, and letters that no surviving word could supply.
+     * Letters are ordered by how many surviving words contain them once more than
+     * the known letters require, using the static English frequencies to break ties.
+     */
+    private List<String> _getEligibleLetters(final List<WordGuess> guesses, final LetterSignature lettersInWord)
+    {
+        final LetterStatistics statistics = this.dictionary.getLetterStatistics();
+        int badLetters = 0;
+        for (WordGuess guess : guesses)
+        {
+            badLetters |= guess.getGrayLetters();
+        }
+
+        final Map<String, Integer> survivorsByLetter = new HashMap<>();
+        final List<String> nextLettersOrdered = new ArrayList<>();
+        for (String letter : WordleConstants.ALL_LETTERS_BY_FREQUENCY)
+        {
+            final int index = letter.charAt(0) - 'a';
+            final int requiredOccurrences = lettersInWord.getCount(index) + 1;
+            final int survivors = statistics.getWordsContaining(letter, requiredOccurrences);
+            if ((badLetters & (1 << index)) == 0 && survivors > 0)
+            {
+                survivorsByLetter.put(letter, survivors);
+                nextLettersOrdered.add(letter);
+            }
+        }
+
+        // Letters were added in static frequency order, and the sort is stable.
+        nextLettersOrdered.sort(Comparator.comparing(survivorsByLetter::get, Comparator.reverseOrder()));
+        return nextLettersOrdered;
+    }
+}
@@ -0,0 +1,104 @@
+package com.dparsons.wordle;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Prunes candidate guesses before they're scored, by what they could tell
+ * us about the surviving words.
+ *
+ * A letter no survivor contains always scores gray and never uses up a
+ * letter of the answer, so it makes no difference which such letter a
+ * guess has in a position. Guesses that only differ in those letters give
+ * every survivor the same pattern, so they're collapsed into one class,
+ * keyed by the guess with each of them replaced by a placeholder, and only
+ * the first guess offered from each class is scored. A guess whose every
+ * letter is either dead or the letter every survivor has in that position
+ * gives all survivors the same pattern, so it's dropped outright.
+ */
+public class GuessSpace
+{
+    private static final Counter EQUIVALENT_GUESSES = Metrics.counter("guesses.pruned.equivalent");
+    private static final Counter DOMINATED_GUESSES = Metrics.counter("guesses.pruned.dominated");
+
+    private static final int ALPHABET_SIZE = 26;
+    private static final int DEAD_LETTER = ALPHABET_SIZE;
+    private static final int BITS_PER_LETTER = 5;
+
+    // Bit n is set if no survivor contains the nth letter of the alphabet.
+    private final int deadLetters;
+
+    // The letter every survivor has at each position, or -1 if they differ.
+    private final int[] fixedLetters;
+
+    private final Set<Long> seenClasses = new HashSet<>();
+
+    private GuessSpace(final int deadLetters, final int[] fixedLetters)
+    {
+        this.deadLetters = deadLetters;
+        this.fixedLetters = fixedLetters;
+    }
+
+    public static GuessSpace of(final Dictionary dictionary, final int wordLength)
+    {
+        final LetterStatistics statistics = dictionary.getLetterStatistics();
+        final int survivors = statistics.getWordCount();
+
+        int deadLetters = 0;
+        for (int letter = 0; letter < ALPHABET_SIZE; letter++)
+        {
+            if (statistics.getWordsContaining(_letter(letter)) == 0)
+            {
+                deadLetters |= 1 << letter;
+            }
+        }
+
+        final int[] fixedLetters = new int[wordLength];
+        for (int position = 0; position < wordLength; position++)
+        {
+            fixedLetters[position] = -1;
+            for (int letter = 0; letter < ALPHABET_SIZE && survivors > 0; letter++)
+            {
+                if (statistics.getPositionalCount(position, _letter(letter)) == survivors)
+                {
+                    fixedLetters[position] = letter;
+                }
+            }
+        }
+        return new GuessSpace(deadLetters, fixedLetters);
+    }
+
+    /**
+     * Whether the guess is worth scoring: false if it can't tell survivors
+     * apart, or an equivalent guess was already admitted.
+     */
+    public boolean admit(final String guess)
+    {
+        long key = 0;
+        boolean informative = false;
+        for (int position = 0; position < guess.length(); position++)
+        {
+            final int letter = guess.charAt(position) - 'a';
+            final boolean dead = (this.deadLetters & (1 << letter)) != 0;
+            informative |= !dead && letter != this.fixedLetters[position];
+            key = (key << BITS_PER_LETTER) | (dead ? DEAD_LETTER : letter);
+        }
+
+        if (!informative)
+        {
+            DOMINATED_GUESSES.increment();
+            return false;
+        }
+        if (!this.seenClasses.add(key))
+        {
+            EQUIVALENT_GUESSES.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private static String _letter(final int letter)
+    {
+        return String.valueOf((char) ('a' + letter));
+    }
+}
@@ -0,0 +1,184 @@
+package com.dparsons.wordle;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of non-negative long values, in the style of
+ * HdrHistogram. Each power of two is split into a fixed number of linear
+ * sub-buckets, so the relative error of a recorded value is bounded by
+ * the number of sub-buckets regardless of magnitude. Safe to record into
+ * from multiple threads without locking.
+ */
+public class Histogram
+{
+    // 2^6 sub-buckets per power of two, for a relative error of about 1.6%.
+    private static final int DEFAULT_PRECISION_BITS = 6;
+
+    private final int precisionBits;
+    private final int subBucketCount;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public Histogram()
+    {
+        this(DEFAULT_PRECISION_BITS);
+    }
+
+    public Histogram(final int precisionBits)
+    {
+        this.precisionBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.counts = new AtomicLongArray((Long.SIZE - precisionBits + 1) * subBucketCount);
+    }
+
+    /**
+     * Record a value. Only records if metrics are enabled, so that
+     * instrumented hot paths cost nothing when they are not.
+     */
+    public void record(final long value)
+    {
+        if (Metrics.ENABLED)
+        {
+            recordValue(value);
+        }
+    }
+
+    /**
+     * Record the nanoseconds elapsed since a start time from {@link Metrics#startTimer()}.
+     */
+    public void recordSince(final long startNanos)
+    {
+        if (Metrics.ENABLED)
+        {
+            recordValue(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Record a value whether or not metrics are enabled. Used by tools
+     * that keep their own histograms, such as benchmark drivers.
+     */
+    public void recordValue(final long value)
+    {
+        final long clamped = Math.max(0, value);
+        counts.incrementAndGet(_bucketIndex(clamped));
+        totalCount.incrementAndGet();
+        sum.addAndGet(clamped);
+        max.accumulateAndGet(clamped, Math::max);
+    }
+
+    /**
+     * Record a value measured by a caller that should have sent a request
+     * every expected interval, but waited for this one instead. Also records
+     * the requests it would have sent in the meantime, as HdrHistogram does,
+     * so a stall counts as many slow requests rather than one (coordinated
+     * omission). An interval of zero or less records the value alone.
+     */
+    public void recordValueWithExpectedInterval(final long value, final long expectedInterval)
+    {
+        recordValue(value);
+        if (expectedInterval <= 0)
+        {
+            return;
+        }
+        for (long missed = value - expectedInterval; missed >= expectedInterval; missed -= expectedInterval)
+        {
+            recordValue(missed);
+        }
+    }
+
+    /**
+     * Add every value recorded in another histogram of the same precision.
+     */
+    public void add(final Histogram other)
+    {
+        for (int i = 0; i < counts.length(); i++)
+        {
+            final long count = other.counts.get(i);
+            if (count > 0)
+            {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        sum.addAndGet(other.sum.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    public long getCount()
+    {
+        return totalCount.get();
+    }
+
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    public double getMean()
+    {
+        final long count = totalCount.get();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    /**
+     * Return the value at the given percentile (0 to 100), reported as the
+     * highest value equivalent to the bucket it falls in.
+     */
+    public long getValueAtPercentile(final double percentile)
+    {
+        final long count = totalCount.get();
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++)
+        {
+            seen += counts.get(i);
+            if (seen >= target)
+            {
+                return Math.min(_highestEquivalentValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < counts.length(); i++)
+        {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Values below 2 * subBucketCount map directly to their own bucket. Above
+     * that, the value is shifted down until it fits in the sub-buckets, and
+     * the shift selects the block of sub-buckets.
+     */
+    private int _bucketIndex(final long value)
+    {
+        final int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - precisionBits - 1);
+        return shift * subBucketCount + (int) (value >>> shift);
+    }
+
+    private long _highestEquivalentValue(final int index)
+    {
+        if (index < 2 * subBucketCount)
+        {
+            return index;
+        }
+        final int shift = index / subBucketCount - 1;
+        final long subBucket = index % subBucketCount + subBucketCount;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,186 @@
+package com.dparsons.wordle;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP front end for the {@link SolverService}, on the JDK's built-in server.
+ * Parameters go in the query string and responses are small JSON objects:
+ *
+ *   POST   /games?length=5                          {"game":1}
+ *   POST   /games/1/guesses?word=slate&scores=01020  {"suggestion":"crane"}
+ *   DELETE /games/1                                {"ended":true}
+ *
+ * Scores are typed as in the command line solver, including "invalid". The
+ * suggestion is null once the game is solved or no word is left. Bad
+ * requests get a 400, unknown games a 404. Requests are handled on
+ * -Dwordle.service.threads (one per core) threads.
+ */
+public class HttpSolverServer implements Closeable
+{
+    private static final int THREADS = Integer.getInteger("wordle.service.threads", Runtime.getRuntime().availableProcessors());
+
+    private static final Histogram START_TIME = Metrics.histogram("service.http.start" + Metrics.NANOS);
+    private static final Histogram GUESS_TIME = Metrics.histogram("service.http.guess" + Metrics.NANOS);
+    private static final Histogram END_TIME = Metrics.histogram("service.http.end" + Metrics.NANOS);
+    private static final Counter ERRORS = Metrics.counter("service.http.errors");
+
+    static
+    {
+        // The server writes headers and body separately, so with Nagle's algorithm
+        // on, every response waits about 40ms for the client's delayed ack.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+        {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final SolverService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public HttpSolverServer(final SolverService service, final InetSocketAddress address)
+    {
+        this.service = service;
+        this.executor = Executors.newFixedThreadPool(THREADS, runnable -> new Thread(runnable, "service-http"));
+        try
+        {
+            this.server = HttpServer.create(address, 0);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Error starting the HTTP server on " + address, e);
+        }
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/games", this::_handle);
+        this.server.start();
+    }
+
+    public InetSocketAddress getAddress()
+    {
+        return this.server.getAddress();
+    }
+
+    @Override
+    public void close()
+    {
+        this.server.stop(0);
+        this.executor.shutdown();
+    }
+
+    private void _handle(final HttpExchange exchange) throws IOException
+    {
+        final long start = Metrics.startTimer();
+        final String[] path = exchange.getRequestURI().getPath().split("/");
+        final String method = exchange.getRequestMethod();
+        final Map<String, String> parameters = _parameters(exchange.getRequestURI().getRawQuery());
+        try
+        {
+            // The path splits into "", "games", then the game id and "guesses" if present.
+            if ("POST".equals(method) && path.length == 2)
+            {
+                final long gameId = this.service.startGame(Integer.parseInt(_required(parameters, "length")));
+                _respond(exchange, 201, "{\"game\":" + gameId + "}");
+                START_TIME.recordSince(start);
+            }
+            else if ("POST".equals(method) && path.length == 4 && "guesses".equals(path[3]))
+            {
+                final String word = _required(parameters, "word").toLowerCase();
+                final String scores = _required(parameters, "scores");
+                final WordGuess guess = "invalid".equalsIgnoreCase(scores) ? WordGuess.invalid(word)
+                        : WordGuess.fromScores(word, scores);
+                final String suggestion = this.service.applyGuess(Long.parseLong(path[2]), guess);
+                _respond(exchange, 200, "{\"suggestion\":" + (suggestion != null ? "\"" + suggestion + "\"" : "null") + "}");
+                GUESS_TIME.recordSince(start);
+            }
+            else if ("DELETE".equals(method) && path.length == 3)
+            {
+                final long gameId = Long.parseLong(path[2]);
+                if (!this.service.endGame(gameId))
+                {
+                    throw new NoSuchElementException("No such game: " + gameId);
+                }
+                // Always with a body: the JDK server drops a kept-alive connection after an empty response.
+                _respond(exchange, 200, "{\"ended\":true}");
+                END_TIME.recordSince(start);
+            }
+            else
+            {
+                _error(exchange, 404, "Unknown request: " + method + " " + exchange.getRequestURI().getPath());
+            }
+        }
+        catch (NoSuchElementException e)
+        {
+            _error(exchange, 404, e.getMessage());
+        }
+        catch (IllegalArgumentException e)
+        {
+            // Also covers unparseable numbers.
+            _error(exchange, 400, e.getMessage());
+        }
+        catch (RuntimeException e)
+        {
+            System.out.println("[HttpSolverServer] Error handling " + method + " " + exchange.getRequestURI() + ": " + e);
+            _error(exchange, 500, "Internal error");
+        }
+    }
+
+    private static void _error(final HttpExchange exchange, final int status, final String message) throws IOException
+    {
+        ERRORS.increment();
+        _respond(exchange, status, "{\"error\":\"" + String.valueOf(message).replace("\\", "\\\\").replace("\"", "\\\"") + "\"}");
+    }
+
+    private static void _respond(final HttpExchange exchange, final int status, final String body) throws IOException
+    {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (final OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> _parameters(final String query)
+    {
+        final Map<String, String> parameters = new HashMap<>();
+        if (query == null)
+        {
+            return parameters;
+        }
+        for (String parameter : query.split("&"))
+        {
+            final int equals = parameter.indexOf('=');
+            if (equals > 0)
+            {
+                parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static String _required(final Map<String, String> parameters, final String name)
+    {
+        final String value = parameters.get(name);
+        if (value == null)
+        {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,168 @@
+package com.dparsons.wordle;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Structure-of-arrays storage for a list of words: one column per letter
+ * position, holding each word's letter at that position as 0-25. Lets
+ * feedback scoring read the same position of many words at once.
+ *
+ * Columns are read from a buffer, which is either on the heap or a view
+ * of a mapped {@link WordCorpus}. Column p starts at offset + p * stride.
+ */
+public class LetterColumns
+{
+    private final ByteBuffer letters;
+    private final int offset;
+    private final int stride;
+    private final int size;
+    private final int wordLength;
+
+    private LetterColumns(final ByteBuffer letters,
+                          final int offset,
+                          final int stride,
+                          final int size,
+                          final int wordLength)
+    {
+        this.letters = letters;
+        this.offset = offset;
+        this.stride = stride;
+        this.size = size;
+        this.wordLength = wordLength;
+    }
+
+    /**
+     * Columns holding the words, which must all be the same length.
+     */
+    public static LetterColumns of(final List<String> words)
+    {
+        final int wordLength = words.isEmpty() ? WordleConstants.DEFAULT_WORD_LENGTH : words.get(0).length();
+        final byte[] columns = new byte[wordLength * words.size()];
+        for (int i = 0; i < words.size(); i++)
+        {
+            final String word = words.get(i);
+            for (int position = 0; position < wordLength; position++)
+            {
+                columns[position * words.size() + i] = (byte) (word.charAt(position) - 'a');
+            }
+        }
+        return new LetterColumns(ByteBuffer.wrap(columns), 0, words.size(), words.size(), wordLength);
+    }
+
+    /**
+     * Columns over existing letters, without copying them.
+     */
+    static LetterColumns view(final ByteBuffer letters,
+                              final int offset,
+                              final int stride,
+                              final int size,
+                              final int wordLength)
+    {
+        return new LetterColumns(letters, offset, stride, size, wordLength);
+    }
+
+    /**
+     * Encode a single word the same way as the columns.
+     */
+    public static byte[] encode(final String word)
+    {
+        final byte[] letters = new byte[word.length()];
+        for (int position = 0; position < letters.length; position++)
+        {
+            letters[position] = (byte) (word.charAt(position) - 'a');
+        }
+        return letters;
+    }
+
+    /**
+     * Return new columns on the heap, holding only the words whose bits
+     * are set (one bit per word, 64 to a long), in order. Count is the
+     * number of bits set.
+     */
+    public LetterColumns compact(final long[] keep, final int count)
+    {
+        final byte[] compacted = new byte[wordLength * count];
+        for (int position = 0; position < wordLength; position++)
+        {
+            final int source = offset + position * stride;
+            final int target = position * count;
+            int next = 0;
+            for (int word = 0; word < keep.length; word++)
+            {
+                long bits = keep[word];
+                while (bits != 0)
+                {
+                    final int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    compacted[target + next++] = letters.get(source + index);
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return new LetterColumns(ByteBuffer.wrap(compacted), 0, count, count, wordLength);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int wordLength()
+    {
+        return wordLength;
+    }
+
+    /**
+     * Return the buffer holding the columns, for bulk reads.
+     */
+    ByteBuffer buffer()
+    {
+        return letters;
+    }
+
+    /**
+     * Return the buffer offset at which the column of a letter position starts.
+     */
+    int columnOffset(final int position)
+    {
+        return offset + position * stride;
+    }
+
+    /**
+     * Return the array holding the columns, or null if they're mapped from a file.
+     */
+    byte[] array()
+    {
+        return letters.hasArray() ? letters.array() : null;
+    }
+
+    /**
+     * Return the array index at which the column of a letter position starts.
+     */
+    int arrayOffset(final int position)
+    {
+        return letters.arrayOffset() + columnOffset(position);
+    }
+
+    int stride()
+    {
+        return stride;
+    }
+
+    /**
+     * Copy the letters of count words, starting at from, into target, with
+     * the column of letter position p starting at p * targetStride.
+     */
+    void copyColumns(final int from, final int count, final byte[] target, final int targetStride)
+    {
+        for (int position = 0; position < wordLength; position++)
+        {
+            letters.get(columnOffset(position) + from, target, position * targetStride, count);
+        }
+    }
+
+    public byte letter(final int position, final int index)
+    {
+        return letters.get(offset + position * stride + index);
+    }
+}
@@ -0,0 +1,147 @@
+package com.dparsons.wordle;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What a set of scored guesses says about the answer, one letter at a time:
+ * the letters allowed at each position, and the least and most times each
+ * letter can occur. A word satisfies these exactly when it would have given
+ * every guess the scores it received, so they can prune a word graph at the
+ * first position that fails instead of scoring whole words.
+ *
+ * For each guess, a green fixes its position, and a yellow or gray rules its
+ * letter out of its position. The greens and yellows of a letter are the
+ * least number of times it occurs, and a gray of the same letter makes that
+ * the exact number.
+ *
+ * Yellows are given left to right, so no word scores a gray before a yellow
+ * of the same letter. Such scores would still give satisfiable counts, so
+ * they're caught here, and leave no letter allowed anywhere, as the scan of
+ * the dictionaries matches nothing for them either.
+ */
+public class LetterConstraints
+{
+    private static final int ALPHABET_SIZE = 26;
+    private static final int ALL_LETTERS = (1 << ALPHABET_SIZE) - 1;
+
+    private final int wordLength;
+
+    // Bitmask of the letters allowed at each position.
+    private final int[] allowed;
+
+    private final int[] minimumCounts = new int[ALPHABET_SIZE];
+    private final int[] maximumCounts = new int[ALPHABET_SIZE];
+
+    private LetterConstraints(final int wordLength)
+    {
+        this.wordLength = wordLength;
+        this.allowed = new int[wordLength];
+        Arrays.fill(this.allowed, ALL_LETTERS);
+        Arrays.fill(this.maximumCounts, wordLength);
+    }
+
+    /**
+     * Build the constraints of the guesses that were scored. Invalid guesses are ignored.
+     * Constraints of scores no word could give match no word.
+     */
+    public static LetterConstraints of(final List<WordGuess> guesses, final int wordLength)
+    {
+        final LetterConstraints constraints = new LetterConstraints(wordLength);
+        final int[] scored = new int[ALPHABET_SIZE];
+        final boolean[] grayed = new boolean[ALPHABET_SIZE];
+
+        for (WordGuess guess : guesses)
+        {
+            if (guess.isInvalid())
+            {
+                continue;
+            }
+
+            Arrays.fill(scored, 0);
+            Arrays.fill(grayed, false);
+
+            for (int position = 0; position < wordLength; position++)
+            {
+                final int letter = guess.letterAt(position);
+                if ((guess.getGreenMask() & (1 << position)) != 0)
+                {
+                    constraints.allowed[position] &= 1 << letter;
+                    scored[letter]++;
+                }
+                else
+                {
+                    constraints.allowed[position] &= ~(1 << letter);
+                    if ((guess.getYellowMask() & (1 << position)) != 0)
+                    {
+                        if (grayed[letter])
+                        {
+                            Arrays.fill(constraints.allowed, 0);
+                            return constraints;
+                        }
+                        scored[letter]++;
+                    }
+                    else
+                    {
+                        grayed[letter] = true;
+                    }
+                }
+            }
+
+            for (int letter = 0; letter < ALPHABET_SIZE; letter++)
+            {
+                constraints.minimumCounts[letter] = Math.max(constraints.minimumCounts[letter], scored[letter]);
+                if (grayed[letter])
+                {
+                    constraints.maximumCounts[letter] = Math.min(constraints.maximumCounts[letter], scored[letter]);
+                }
+            }
+        }
+
+        // A letter that can't occur at all drops out of every position.
+        for (int letter = 0; letter < ALPHABET_SIZE; letter++)
+        {
+            if (constraints.maximumCounts[letter] == 0)
+            {
+                for (int position = 0; position < wordLength; position++)
+                {
+                    constraints.allowed[position] &= ~(1 << letter);
+                }
+            }
+        }
+        return constraints;
+    }
+
+    public int wordLength()
+    {
+        return wordLength;
+    }
+
+    public boolean allows(final int position, final int letter)
+    {
+        return (allowed[position] & (1 << letter)) != 0;
+    }
+
+    public int getMinimumCount(final int letter)
+    {
+        return minimumCounts[letter];
+    }
+
+    public int getMaximumCount(final int letter)
+    {
+        return maximumCounts[letter];
+    }
+
+    /**
+     * Return the total number of letter occurrences every matching word must have.
+     */
+    public int getRequiredLetters()
+    {
+        int required = 0;
+        for (final int count : minimumCounts)
+        {
+            required += count;
+        }
+        return required;
+    }
+}
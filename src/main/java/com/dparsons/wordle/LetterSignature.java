@@ -0,0 +1,174 @@
+package com.dparsons.wordle;
+
+import java.util.List;
+
+/**
+ * How many times a word contains each letter, packed four bits per letter
+ * into two longs: a to p in the low long, q to z in the high one. Each
+ * field holds a count of up to 7 in its low three bits, with the top bit
+ * left clear as a guard.
+ *
+ * The guards make "contains at least these letters" one subtraction per
+ * long. Setting every guard on the word's signature and subtracting the
+ * required signature can't borrow across fields, and leaves a field's
+ * guard set exactly when the word has enough of that letter. Repeated
+ * letters need nothing special: "e, e" is a count of 2 in the e field.
+ */
+public final class LetterSignature
+{
+    private static final int ALPHABET_SIZE = 26;
+    private static final int LETTERS_PER_LONG = 16;
+    private static final int MAX_COUNT = 7;
+    private static final long GUARDS = 0x8888888888888888L;
+
+    public static final LetterSignature EMPTY = new LetterSignature(0L, 0L);
+
+    private final long low;
+    private final long high;
+
+    private LetterSignature(final long low, final long high)
+    {
+        this.low = low;
+        this.high = high;
+    }
+
+    public static LetterSignature of(final CharSequence word)
+    {
+        return new LetterSignature(lowOf(word), highOf(word));
+    }
+
+    /**
+     * Build the signature of a list of single letters, such as the letters
+     * known to be in the answer. A letter listed twice is counted twice.
+     */
+    public static LetterSignature of(final List<String> letters)
+    {
+        LetterSignature signature = EMPTY;
+        for (String letter : letters)
+        {
+            signature = signature.plus(letter.charAt(0) - 'a');
+        }
+        return signature;
+    }
+
+    /**
+     * Return this signature with one more of the letter (0-25).
+     */
+    public LetterSignature plus(final int letter)
+    {
+        if (letter < LETTERS_PER_LONG)
+        {
+            return new LetterSignature(_increment(low, letter), high);
+        }
+        return new LetterSignature(low, _increment(high, letter - LETTERS_PER_LONG));
+    }
+
+    public int getCount(final int letter)
+    {
+        final long packed = letter < LETTERS_PER_LONG ? low : high;
+        return (int) (packed >>> (4 * (letter % LETTERS_PER_LONG))) & MAX_COUNT;
+    }
+
+    /**
+     * Whether this signature has at least as many of every letter as the required one.
+     */
+    public boolean containsAll(final LetterSignature required)
+    {
+        return covers(low, required.low) && covers(high, required.high);
+    }
+
+    /**
+     * Whether the word contains at least the letters of this signature.
+     * Doesn't allocate, so it can run once per dictionary word.
+     */
+    public boolean isContainedIn(final CharSequence word)
+    {
+        return covers(lowOf(word), low) && covers(highOf(word), high);
+    }
+
+    long getLow()
+    {
+        return low;
+    }
+
+    long getHigh()
+    {
+        return high;
+    }
+
+    /**
+     * Whether every field of have is at least the same field of need.
+     */
+    static boolean covers(final long have, final long need)
+    {
+        return (((have | GUARDS) - need) & GUARDS) == GUARDS;
+    }
+
+    static long lowOf(final CharSequence word)
+    {
+        long packed = 0;
+        for (int i = 0; i < word.length(); i++)
+        {
+            final int letter = word.charAt(i) - 'a';
+            if (letter >= 0 && letter < LETTERS_PER_LONG)
+            {
+                packed = _increment(packed, letter);
+            }
+        }
+        return packed;
+    }
+
+    static long highOf(final CharSequence word)
+    {
+        long packed = 0;
+        for (int i = 0; i < word.length(); i++)
+        {
+            final int letter = word.charAt(i) - 'a';
+            if (letter >= LETTERS_PER_LONG && letter < ALPHABET_SIZE)
+            {
+                packed = _increment(packed, letter - LETTERS_PER_LONG);
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Add one to a field, saturating at 7 so it never reaches the guard.
+     */
+    private static long _increment(final long packed, final int field)
+    {
+        final int shift = 4 * field;
+        return ((packed >>> shift) & MAX_COUNT) == MAX_COUNT ? packed : packed + (1L << shift);
+    }
+
+    @Override
+    public boolean equals(final Object other)
+    {
+        if (!(other instanceof LetterSignature))
+        {
+            return false;
+        }
+        final LetterSignature signature = (LetterSignature) other;
+        return low == signature.low && high == signature.high;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(low) * 31 + Long.hashCode(high);
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder letters = new StringBuilder();
+        for (int letter = 0; letter < ALPHABET_SIZE; letter++)
+        {
+            for (int n = 0; n < getCount(letter); n++)
+            {
+                letters.append((char) ('a' + letter));
+            }
+        }
+        return letters.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.dparsons.wordle;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * The words of a corpus grouped by {@link LetterSignature}. Anagrams share
+ * a signature, so there are far fewer signatures than words, and a query
+ * for words containing some letters checks each signature once instead of
+ * each word.
+ */
+public class LetterSignatureIndex
+{
+    // Distinct signatures, in order of first appearance.
+    private final long[] lows;
+    private final long[] highs;
+
+    // Ids with signature s are ids[firstId[s]] up to ids[firstId[s + 1]], ascending.
+    private final int[] firstId;
+    private final int[] ids;
+
+    private LetterSignatureIndex(final long[] lows, final long[] highs, final int[] firstId, final int[] ids)
+    {
+        this.lows = lows;
+        this.highs = highs;
+        this.firstId = firstId;
+        this.ids = ids;
+    }
+
+    public static LetterSignatureIndex build(final WordCorpus corpus)
+    {
+        final Map<LetterSignature, Integer> signatureIndexes = new HashMap<>();
+        final int[] signatureOfId = new int[corpus.size()];
+        final StringBuilder word = new StringBuilder(corpus.wordLength());
+
+        for (int id = 0; id < corpus.size(); id++)
+        {
+            word.setLength(0);
+            for (int position = 0; position < corpus.wordLength(); position++)
+            {
+                word.append((char) ('a' + corpus.letter(position, id)));
+            }
+            final LetterSignature signature = LetterSignature.of(word);
+            final Integer existing = signatureIndexes.putIfAbsent(signature, signatureIndexes.size());
+            signatureOfId[id] = existing != null ? existing : signatureIndexes.size() - 1;
+        }
+
+        final int signatures = signatureIndexes.size();
+        final long[] lows = new long[signatures];
+        final long[] highs = new long[signatures];
+        signatureIndexes.forEach((signature, index) ->
+        {
+            lows[index] = signature.getLow();
+            highs[index] = signature.getHigh();
+        });
+
+        // Group ids by signature with a counting sort, which keeps each group ascending.
+        final int[] firstId = new int[signatures + 1];
+        for (final int signature : signatureOfId)
+        {
+            firstId[signature + 1]++;
+        }
+        for (int signature = 0; signature < signatures; signature++)
+        {
+            firstId[signature + 1] += firstId[signature];
+        }
+        final int[] next = firstId.clone();
+        final int[] ids = new int[signatureOfId.length];
+        for (int id = 0; id < signatureOfId.length; id++)
+        {
+            ids[next[signatureOfId[id]]++] = id;
+        }
+        return new LetterSignatureIndex(lows, highs, firstId, ids);
+    }
+
+    public int getSignatureCount()
+    {
+        return lows.length;
+    }
+
+    /**
+     * Return the ids of every word containing at least the required letters, ascending.
+     */
+    public int[] idsContaining(final LetterSignature required)
+    {
+        final IntStream.Builder matches = IntStream.builder();
+        for (int signature = 0; signature < lows.length; signature++)
+        {
+            if (LetterSignature.covers(lows[signature], required.getLow())
+                    && LetterSignature.covers(highs[signature], required.getHigh()))
+            {
+                for (int i = firstId[signature]; i < firstId[signature + 1]; i++)
+                {
+                    matches.add(ids[i]);
+                }
+            }
+        }
+        Dictionary.PREDICATE_EVALUATIONS.add(lows.length);
+        return matches.build().sorted().toArray();
+    }
+}
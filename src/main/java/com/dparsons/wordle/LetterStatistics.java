@@ -0,0 +1,174 @@
+package com.dparsons.wordle;
+
+/**
+ * Letter frequency tables over a set of candidate words. Tracks how many
+ * words contain each letter, how many words have each letter in each
+ * position, and how many words contain each letter a given number of times.
+ *
+ * Meant to be maintained incrementally: words are added once when the
+ * dictionary loads and removed as they are eliminated, rather than
+ * recounting the remaining words on every turn. All lookups are array reads.
+ */
+public class LetterStatistics
+{
+    private static final int ALPHABET_SIZE = 26;
+    private final int wordLength;
+    private int wordCount;
+
+    // Number of words with a letter at a position, indexed by position * 26 + letter.
+    private final int[] positionalCounts;
+
+    /*
+     * Number of words containing a letter at least n times, indexed by
+     * letter * (wordLength + 1) + n. Entries for n = 1 are the overall
+     * number of words containing the letter.
+     */
+    private final int[] wordsWithAtLeast;
+
+    // Scratch space for the letters, and letter counts, of the word being added or removed.
+    private final int[] wordLetters;
+    private final int[] letterCounts = new int[ALPHABET_SIZE];
+
+    public LetterStatistics(final int wordLength)
+    {
+        this.wordLength = wordLength;
+        this.positionalCounts = new int[wordLength * ALPHABET_SIZE];
+        this.wordsWithAtLeast = new int[ALPHABET_SIZE * (wordLength + 1)];
+        this.wordLetters = new int[wordLength];
+    }
+
+    private LetterStatistics(final LetterStatistics other)
+    {
+        this.wordLength = other.wordLength;
+        this.wordLetters = new int[other.wordLength];
+        this.wordCount = other.wordCount;
+        this.positionalCounts = other.positionalCounts.clone();
+        this.wordsWithAtLeast = other.wordsWithAtLeast.clone();
+    }
+
+    public LetterStatistics copy()
+    {
+        return new LetterStatistics(this);
+    }
+
+    public void add(final String word)
+    {
+        _setLetters(word);
+        _update(1);
+    }
+
+    /**
+     * Add the word at the given index of the columns, without building a String for it.
+     */
+    public void add(final LetterColumns columns, final int index)
+    {
+        _setLetters(columns, index);
+        _update(1);
+    }
+
+    public void remove(final String word)
+    {
+        _setLetters(word);
+        _update(-1);
+    }
+
+    public void remove(final LetterColumns columns, final int index)
+    {
+        _setLetters(columns, index);
+        _update(-1);
+    }
+
+    public int getWordCount()
+    {
+        return wordCount;
+    }
+
+    /**
+     * Return the number of words containing the letter at least once.
+     */
+    public int getWordsContaining(final String letter)
+    {
+        return getWordsContaining(letter, 1);
+    }
+
+    /**
+     * Return the number of words containing the letter at least the given
+     * number of times. For example, ("e", 2) counts words like "geese" and "eerie".
+     */
+    public int getWordsContaining(final String letter, final int occurrences)
+    {
+        if (occurrences <= 0)
+        {
+            return wordCount;
+        }
+        if (occurrences > wordLength)
+        {
+            return 0;
+        }
+        return wordsWithAtLeast[_index(letter) * (wordLength + 1) + occurrences];
+    }
+
+    /**
+     * Return the number of words containing the letter exactly the given number of times.
+     */
+    public int getWordsWithExactly(final String letter, final int occurrences)
+    {
+        return getWordsContaining(letter, occurrences) - getWordsContaining(letter, occurrences + 1);
+    }
+
+    /**
+     * Return the number of words with the letter at the given position.
+     */
+    public int getPositionalCount(final int position, final String letter)
+    {
+        return positionalCounts[position * ALPHABET_SIZE + _index(letter)];
+    }
+
+    private void _setLetters(final String word)
+    {
+        for (int position = 0; position < wordLength; position++)
+        {
+            wordLetters[position] = word.charAt(position) - 'a';
+        }
+    }
+
+    private void _setLetters(final LetterColumns columns, final int index)
+    {
+        for (int position = 0; position < wordLength; position++)
+        {
+            wordLetters[position] = columns.letter(position, index);
+        }
+    }
+
+    private void _update(final int delta)
+    {
+        wordCount += delta;
+
+        for (int position = 0; position < wordLength; position++)
+        {
+            final int letter = wordLetters[position];
+            positionalCounts[position * ALPHABET_SIZE + letter] += delta;
+            letterCounts[letter]++;
+        }
+
+        for (int position = 0; position < wordLength; position++)
+        {
+            final int letter = wordLetters[position];
+            final int occurrences = letterCounts[letter];
+            if (occurrences > 0)
+            {
+                // Each word counts once towards each of 1..occurrences.
+                for (int n = 1; n <= occurrences; n++)
+                {
+                    wordsWithAtLeast[letter * (wordLength + 1) + n] += delta;
+                }
+                letterCounts[letter] = 0;
+            }
+        }
+    }
+
+    private static int _index(final String letter)
+    {
+        return letter.charAt(0) - 'a';
+    }
+}
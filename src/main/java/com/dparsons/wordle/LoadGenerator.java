@@ -0,0 +1,343 @@
+package com.dparsons.wordle;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load generator for a running {@link SolverService}: simulated players
+ * pick answers from the plaintext dictionary, score each suggestion
+ * themselves and keep guessing until they win. Reports throughput and
+ * latency percentiles per endpoint, and whether each endpoint's p99 is
+ * within -Dwordle.load.slo.ms.
+ *
+ * Closed loop (the default): -Dwordle.load.players each play one game after
+ * another, waiting -Dwordle.load.think.ms between guesses. A slow response
+ * holds the player up, so the requests it would have sent meanwhile are
+ * filled in using the think time as the expected interval (coordinated
+ * omission correction; there's nothing to correct with no think time).
+ *
+ * Open loop (-Dwordle.load.model=open): games arrive at -Dwordle.load.rate
+ * per second whether or not earlier ones have finished, and are played by
+ * the pool of players. A game that waits for a free player counts the wait
+ * in the latency of its first request, which is measured from when the game
+ * was due to start, not when it was sent.
+ *
+ * Either way, load rises linearly over -Dwordle.load.rampup.s: players start
+ * one by one, or the arrival rate climbs from zero. Latencies are only
+ * recorded after the ramp-up, for -Dwordle.load.duration.s.
+ */
+public class LoadGenerator
+{
+    private static final int PLAYERS = Integer.getInteger("wordle.load.players", 16);
+    private static final boolean OPEN_LOOP = "open".equalsIgnoreCase(System.getProperty("wordle.load.model", "closed"));
+    private static final double RATE = Double.parseDouble(System.getProperty("wordle.load.rate", "10"));
+    private static final long THINK_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("wordle.load.think.ms", 0));
+    private static final long RAMP_UP_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("wordle.load.rampup.s", 10));
+    private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("wordle.load.duration.s", 60));
+    private static final int WORD_LENGTH = Integer.getInteger("wordle.load.length", WordleConstants.DEFAULT_WORD_LENGTH);
+    private static final String OPENING_WORD = System.getProperty("wordle.load.opening");
+    private static final long SLO_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("wordle.load.slo.ms", 100));
+    private static final long SEED = Long.getLong("wordle.load.seed", System.nanoTime());
+
+    // Players give up on a game after this many guesses, in case the service can't solve it.
+    private static final int MAXIMUM_GUESSES = 20;
+
+    private static final Pattern GAME_ID = Pattern.compile("\"game\":(\\d+)");
+    private static final Pattern SUGGESTION = Pattern.compile("\"suggestion\":(?:\"([a-z]+)\"|null)");
+
+    private final URI baseUri;
+    private final List<String> answers;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final Endpoint start = new Endpoint("start");
+    private final Endpoint guess = new Endpoint("guess");
+    private final Endpoint end = new Endpoint("end");
+
+    private final AtomicInteger gamesPlayed = new AtomicInteger();
+    private final AtomicInteger gamesSolved = new AtomicInteger();
+    private final AtomicLong guessesInSolvedGames = new AtomicLong();
+
+    // Recording starts once the ramp-up is over, and games stop starting at the end.
+    private long recordFromNanos;
+    private long endNanos;
+
+    public static void main(String[] args) throws Exception
+    {
+        final String filename = args[0];
+        final String url = args.length > 1 ? args[1] : "http://localhost:" + Integer.getInteger("wordle.service.http.port", 8080);
+        final LoadGenerator generator = new LoadGenerator(URI.create(url), DictionaryFileParser.parseDictionary(filename, WORD_LENGTH));
+        final boolean withinSlo = generator.run();
+        System.exit(withinSlo ? 0 : 1);
+    }
+
+    public LoadGenerator(final URI baseUri, final List<String> answers)
+    {
+        if (answers.isEmpty())
+        {
+            throw new IllegalArgumentException("No " + WORD_LENGTH + "-letter answers in the dictionary");
+        }
+        this.baseUri = baseUri;
+        this.answers = answers;
+    }
+
+    /**
+     * Run the load, print the report, and return whether every endpoint met the SLO.
+     */
+    public boolean run() throws InterruptedException
+    {
+        System.out.println((OPEN_LOOP ? "Open loop, " + RATE + " games/s" : "Closed loop") + ", " + PLAYERS
+                + " players, " + TimeUnit.NANOSECONDS.toSeconds(RAMP_UP_NANOS) + "s ramp-up, "
+                + TimeUnit.NANOSECONDS.toSeconds(DURATION_NANOS) + "s measured, against " + this.baseUri);
+
+        final long startNanos = System.nanoTime();
+        this.recordFromNanos = startNanos + RAMP_UP_NANOS;
+        this.endNanos = this.recordFromNanos + DURATION_NANOS;
+        final ExecutorService players = Executors.newFixedThreadPool(PLAYERS, runnable -> new Thread(runnable, "player"));
+        if (OPEN_LOOP)
+        {
+            _arriveOpenLoop(players, startNanos);
+        }
+        else
+        {
+            for (int player = 0; player < PLAYERS; player++)
+            {
+                final long firstGameNanos = startNanos + RAMP_UP_NANOS * player / PLAYERS;
+                final Random random = new Random(SEED + player);
+                players.execute(() -> _playClosedLoop(random, firstGameNanos));
+            }
+        }
+        players.shutdown();
+        players.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        return _report();
+    }
+
+    /**
+     * Per-endpoint latencies: service time from when each request was sent,
+     * and response time from when it should have been, corrected as above.
+     */
+    private static final class Endpoint
+    {
+        private final String name;
+        private final Histogram serviceTime = new Histogram();
+        private final Histogram responseTime = new Histogram();
+        private final AtomicInteger errors = new AtomicInteger();
+
+        private Endpoint(final String name)
+        {
+            this.name = name;
+        }
+    }
+
+    private void _playClosedLoop(final Random random, final long firstGameNanos)
+    {
+        _sleepUntil(firstGameNanos);
+        while (System.nanoTime() - this.endNanos < 0)
+        {
+            _playGame(random, System.nanoTime());
+        }
+    }
+
+    /**
+     * Submit games at their scheduled arrival times until the end, each
+     * played by whichever player is free.
+     */
+    private void _arriveOpenLoop(final ExecutorService players, final long startNanos)
+    {
+        final Random random = new Random(SEED);
+        for (long game = 0; ; game++)
+        {
+            final long dueNanos = startNanos + _arrivalOffsetNanos(game);
+            if (dueNanos - this.endNanos >= 0)
+            {
+                break;
+            }
+            _sleepUntil(dueNanos);
+            final Random gameRandom = new Random(random.nextLong());
+            players.execute(() -> _playGame(gameRandom, dueNanos));
+        }
+    }
+
+    /**
+     * When the nth game arrives, with the rate rising linearly over the ramp-up:
+     * n games have arrived by time t when n = rate * t^2 / (2 * ramp-up) during
+     * the ramp-up, and n = rate * (t - ramp-up / 2) after it.
+     */
+    private static long _arrivalOffsetNanos(final long game)
+    {
+        final double rampUpSeconds = RAMP_UP_NANOS / 1e9;
+        final double seconds = game < RATE * rampUpSeconds / 2
+                ? Math.sqrt(2 * game * rampUpSeconds / RATE)
+                : game / RATE + rampUpSeconds / 2;
+        return (long) (seconds * 1e9);
+    }
+
+    /**
+     * Play one game to the end. The first request is due at the given time,
+     * and each guess after it one think time after the previous response.
+     */
+    private void _playGame(final Random random, final long dueNanos)
+    {
+        final String answer = this.answers.get(random.nextInt(this.answers.size()));
+        String word = OPENING_WORD != null ? OPENING_WORD : this.answers.get(random.nextInt(this.answers.size()));
+
+        final String started = _send(this.start, HttpRequest.newBuilder(this.baseUri.resolve("/games?length=" + WORD_LENGTH))
+                .POST(HttpRequest.BodyPublishers.noBody()), dueNanos);
+        final Matcher gameId = started != null ? GAME_ID.matcher(started) : null;
+        if (gameId == null || !gameId.find())
+        {
+            return;
+        }
+        final String game = "/games/" + gameId.group(1);
+
+        for (int guesses = 1; guesses <= MAXIMUM_GUESSES; guesses++)
+        {
+            final int pattern = FeedbackPattern.score(word, answer);
+            final String scores = FeedbackPattern.toScores(pattern, WORD_LENGTH);
+            _sleepNanos(THINK_NANOS);
+            final String guessed = _send(this.guess, HttpRequest.newBuilder(this.baseUri.resolve(game + "/guesses?word=" + word
+                    + "&scores=" + scores)).POST(HttpRequest.BodyPublishers.noBody()), System.nanoTime());
+            if (guessed == null)
+            {
+                return;
+            }
+            if (pattern == FeedbackPattern.solved(WORD_LENGTH))
+            {
+                // A correct guess ends the game on the service.
+                _gameOver(true, guesses);
+                return;
+            }
+
+            final Matcher suggestion = SUGGESTION.matcher(guessed);
+            if (!suggestion.find() || suggestion.group(1) == null)
+            {
+                break;
+            }
+            word = suggestion.group(1);
+        }
+
+        _send(this.end, HttpRequest.newBuilder(this.baseUri.resolve(game)).DELETE(), System.nanoTime());
+        _gameOver(false, MAXIMUM_GUESSES);
+    }
+
+    private void _gameOver(final boolean solved, final int guesses)
+    {
+        if (System.nanoTime() - this.recordFromNanos < 0)
+        {
+            return;
+        }
+        this.gamesPlayed.incrementAndGet();
+        if (solved)
+        {
+            this.gamesSolved.incrementAndGet();
+            this.guessesInSolvedGames.addAndGet(guesses);
+        }
+    }
+
+    /**
+     * Send a request due at the given time, record its latencies, and return
+     * the response body, or null if it failed.
+     */
+    private String _send(final Endpoint endpoint, final HttpRequest.Builder request, final long dueNanos)
+    {
+        final long sentNanos = System.nanoTime();
+        String body = null;
+        try
+        {
+            final HttpResponse<String> response = this.client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 == 2)
+            {
+                body = response.body();
+            }
+        }
+        catch (IOException e)
+        {
+            // Counted as an error below.
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        final long receivedNanos = System.nanoTime();
+        if (sentNanos - this.recordFromNanos < 0)
+        {
+            return body;
+        }
+        if (body == null)
+        {
+            endpoint.errors.incrementAndGet();
+        }
+        endpoint.serviceTime.recordValue(receivedNanos - sentNanos);
+        if (OPEN_LOOP)
+        {
+            endpoint.responseTime.recordValue(receivedNanos - dueNanos);
+        }
+        else
+        {
+            endpoint.responseTime.recordValueWithExpectedInterval(receivedNanos - dueNanos, THINK_NANOS);
+        }
+        return body;
+    }
+
+    private boolean _report()
+    {
+        final double seconds = DURATION_NANOS / 1e9;
+        final int solved = this.gamesSolved.get();
+        System.out.printf("%nGames: %d finished, %.1f/s, %d solved in %.2f guesses on average%n",
+                this.gamesPlayed.get(), this.gamesPlayed.get() / seconds, solved,
+                solved > 0 ? (double) this.guessesInSolvedGames.get() / solved : 0.0);
+        System.out.println("Latency (ms)              count   errors      p50      p99    p99.9      max");
+
+        boolean withinSlo = true;
+        for (Endpoint endpoint : List.of(this.start, this.guess, this.end))
+        {
+            _printLatency(endpoint.name + " service", endpoint.serviceTime, endpoint.errors.get());
+            _printLatency(endpoint.name + " response", endpoint.responseTime, endpoint.errors.get());
+            withinSlo &= endpoint.responseTime.getValueAtPercentile(99) <= SLO_NANOS;
+        }
+
+        System.out.println("\np99 response time within " + TimeUnit.NANOSECONDS.toMillis(SLO_NANOS) + "ms: "
+                + (withinSlo ? "yes" : "no"));
+        return withinSlo;
+    }
+
+    private static void _printLatency(final String label, final Histogram histogram, final int errors)
+    {
+        System.out.printf("  %-20s %8d %8d %8.2f %8.2f %8.2f %8.2f%n", label, histogram.getCount(), errors,
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMax() / 1e6);
+    }
+
+    private static void _sleepUntil(final long nanos)
+    {
+        _sleepNanos(nanos - System.nanoTime());
+    }
+
+    private static void _sleepNanos(final long nanos)
+    {
+        if (nanos <= 0)
+        {
+            return;
+        }
+        try
+        {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
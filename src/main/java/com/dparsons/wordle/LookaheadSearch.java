@@ -0,0 +1,471 @@
+package com.dparsons.wordle;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Chooses the guess that minimizes the expected number of guesses still
+ * needed, looking two turns ahead rather than one. For each candidate
+ * guess, the survivors are split by the pattern they'd give it, and each
+ * part is solved in turn by the best second guess, whose own parts are
+ * valued by a rough estimate of the guesses left.
+ *
+ * Only for small survivor sets (-Dwordle.lookahead.survivors, 500), since
+ * every pattern of every candidate against every survivor is computed up
+ * front. Candidates are every survivor, since any of them might be the
+ * answer, and the best of the most frequent other words by single-step
+ * score, up to -Dwordle.lookahead.width (64) in all. They're searched in
+ * order of that score.
+ *
+ * Keeping it fast:
+ * - The value of a set of survivors is memoized in a table shared by all
+ *   threads, keyed by the set itself, since different guesses often leave
+ *   the same survivors.
+ * - Each part is worth at least what it would cost if the next guess were
+ *   sure to solve it, so a guess is abandoned as soon as what it has cost
+ *   so far, plus that bound for the parts left, can't beat the best guess.
+ * - First guesses are searched in parallel, sharing the best so far.
+ * - The search stops expanding once it has scored -Dwordle.lookahead.nodes
+ *   (200000) guesses, falling back to the estimate for whatever is left.
+ */
+public class LookaheadSearch
+{
+    private static final Histogram NODES = Metrics.histogram("lookahead.nodes");
+    private static final Counter TRANSPOSITIONS = Metrics.counter("lookahead.transpositions");
+    private static final Counter CUTOFFS = Metrics.counter("lookahead.cutoffs");
+    private static final Counter BUDGETS_EXHAUSTED = Metrics.counter("lookahead.budget.exhausted");
+
+    private static final int MAXIMUM_SURVIVORS = Integer.getInteger("wordle.lookahead.survivors", 500);
+    private static final int WIDTH = Integer.getInteger("wordle.lookahead.width", 64);
+    private static final long NODE_BUDGET = Long.getLong("wordle.lookahead.nodes", 200_000);
+
+    // Other words ranked by single-step score to pick the candidates from.
+    private static final int GUESSES_RANKED = 2000;
+
+    // How many times over a guess is assumed to cut the survivors, when estimating past the horizon.
+    private static final double LEAF_SPLIT = 8.0;
+
+    private static final int DEPTH = 2;
+
+    /**
+     * The chosen guess, and what the search thinks it's worth.
+     */
+    public static final class Result
+    {
+        private final String guess;
+        private final double expectedGuesses;
+        private final long nodes;
+        private final boolean exhausted;
+
+        private Result(final String guess, final double expectedGuesses, final long nodes, final boolean exhausted)
+        {
+            this.guess = guess;
+            this.expectedGuesses = expectedGuesses;
+            this.nodes = nodes;
+            this.exhausted = exhausted;
+        }
+
+        public String getGuess()
+        {
+            return guess;
+        }
+
+        /**
+         * Return the expected number of guesses to solve, counting this one.
+         */
+        public double getExpectedGuesses()
+        {
+            return expectedGuesses;
+        }
+
+        public long getNodes()
+        {
+            return nodes;
+        }
+
+        /**
+         * Whether the node budget ran out, so parts of the search fell back to estimates.
+         */
+        public boolean isBudgetExhausted()
+        {
+            return exhausted;
+        }
+    }
+
+    /**
+     * A set of survivors, as bits over the survivor indexes, at a given depth.
+     */
+    private static final class SurvivorSet
+    {
+        private final long[] bits;
+        private final int depth;
+        private final int hash;
+
+        private SurvivorSet(final long[] bits, final int depth)
+        {
+            this.bits = bits;
+            this.depth = depth;
+            this.hash = Arrays.hashCode(bits) * 31 + depth;
+        }
+
+        @Override
+        public boolean equals(final Object other)
+        {
+            return other instanceof SurvivorSet
+                    && ((SurvivorSet) other).depth == this.depth
+                    && Arrays.equals(((SurvivorSet) other).bits, this.bits);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+
+    private final String[] guesses;
+    private final List<String> survivors;
+
+    // Index into the survivors of each guess, or -1 if it isn't one.
+    private final int[] survivorIndexes;
+
+    /*
+     * parts[g][s] is the part of the survivors s falls in when guessing g.
+     * Parts are the patterns guess g actually receives, renumbered from zero,
+     * so counting them takes an array the size of the survivors rather than
+     * of every pattern, which for long words is far larger.
+     */
+    private final int[][] parts;
+    private final int[] partCounts;
+
+    // The part of each guess that it solves, or -1 if it isn't a survivor.
+    private final int[] solvedParts;
+
+    private final int survivorCount;
+    private final Map<SurvivorSet, Double> table = new ConcurrentHashMap<>();
+    private final AtomicLong nodes = new AtomicLong();
+
+    private LookaheadSearch(final String[] guesses, final List<String> survivors)
+    {
+        this.guesses = guesses;
+        this.survivors = survivors;
+        this.survivorCount = survivors.size();
+        this.survivorIndexes = new int[guesses.length];
+        this.parts = new int[guesses.length][survivors.size()];
+        this.partCounts = new int[guesses.length];
+        this.solvedParts = new int[guesses.length];
+
+        final Map<String, Integer> survivorIndex = new HashMap<>();
+        for (int s = 0; s < survivors.size(); s++)
+        {
+            survivorIndex.put(survivors.get(s), s);
+        }
+        for (int g = 0; g < guesses.length; g++)
+        {
+            final Map<Integer, Integer> partsByPattern = new HashMap<>();
+            for (int s = 0; s < survivors.size(); s++)
+            {
+                final int pattern = FeedbackPattern.score(guesses[g], survivors.get(s));
+                this.parts[g][s] = partsByPattern.computeIfAbsent(pattern, unused -> partsByPattern.size());
+            }
+            this.partCounts[g] = partsByPattern.size();
+            this.survivorIndexes[g] = survivorIndex.getOrDefault(guesses[g], -1);
+            this.solvedParts[g] = this.survivorIndexes[g] >= 0 ? this.parts[g][this.survivorIndexes[g]] : -1;
+        }
+    }
+
+    /**
+     * Whether the dictionary is narrow enough to search ahead, and not so
+     * narrow that there's nothing to choose.
+     */
+    public static boolean appliesTo(final Dictionary dictionary)
+    {
+        final int survivors = dictionary.getSurvivorCount();
+        return survivors > 2 && survivors <= MAXIMUM_SURVIVORS;
+    }
+
+    public static Result search(final Dictionary dictionary)
+    {
+        final List<String> survivors = new ArrayList<>();
+        dictionary.forEachWord(survivors::add);
+
+        /*
+         * Rank the survivors and the most frequent other words by single-step score. Survivors
+         * are visited first, so all of them are ranked; other words are pruned as in GuessSpace.
+         */
+        final GuessSpace guessSpace = GuessSpace.of(dictionary, dictionary.getSnapshot().getWikipediaCorpus().wordLength());
+        final List<String> ranked = new ArrayList<>();
+        dictionary.forEachGuess(word ->
+        {
+            if (guessSpace.admit(word) || ranked.size() < survivors.size())
+            {
+                ranked.add(word);
+            }
+            return ranked.size() < survivors.size() + GUESSES_RANKED;
+        });
+        final Map<String, Double> singleStep = new HashMap<>();
+        for (String guess : ranked)
+        {
+            singleStep.put(guess, _singleStepScore(guess, survivors));
+        }
+        ranked.sort(Comparator.comparing(singleStep::get));
+
+        return search(candidates(ranked, survivors, WIDTH), survivors);
+    }
+
+    /**
+     * Keep every survivor from the ranked guesses, and the best of the rest
+     * up to the width, in their ranked order.
+     */
+    static String[] candidates(final List<String> ranked, final List<String> survivors, final int width)
+    {
+        final Set<String> possibleAnswers = new HashSet<>(survivors);
+        int others = width - possibleAnswers.size();
+        final List<String> candidates = new ArrayList<>();
+        for (String guess : ranked)
+        {
+            if (possibleAnswers.contains(guess))
+            {
+                candidates.add(guess);
+            }
+            else if (others > 0)
+            {
+                candidates.add(guess);
+                others--;
+            }
+        }
+        return candidates.toArray(new String[0]);
+    }
+
+    /**
+     * Search the given guesses, in order, for the best against the survivors.
+     */
+    static Result search(final String[] guesses, final List<String> survivors)
+    {
+        return new LookaheadSearch(guesses, survivors)._searchRoot();
+    }
+
+    private Result _searchRoot()
+    {
+        final long[] all = new long[(survivorCount + 63) >>> 6];
+        for (int s = 0; s < survivorCount; s++)
+        {
+            all[s >>> 6] |= 1L << s;
+        }
+
+        // Best value so far, as double bits, shared by the threads searching first guesses.
+        final AtomicLong best = new AtomicLong(Double.doubleToLongBits(Double.MAX_VALUE));
+        final double[] values = new double[guesses.length];
+        IntStream.range(0, guesses.length).parallel().forEach(g ->
+        {
+            values[g] = _valueOfGuess(g, all, survivorCount, DEPTH, Double.longBitsToDouble(best.get()));
+            best.accumulateAndGet(Double.doubleToLongBits(values[g]),
+                    (current, candidate) -> Double.longBitsToDouble(candidate) < Double.longBitsToDouble(current) ? candidate : current);
+        });
+
+        // Lowest value wins, and ties go to the guess that ranked first on its own.
+        int chosen = 0;
+        for (int g = 1; g < guesses.length; g++)
+        {
+            if (values[g] < values[chosen])
+            {
+                chosen = g;
+            }
+        }
+
+        final long searched = nodes.get();
+        NODES.record(searched);
+        if (searched >= NODE_BUDGET)
+        {
+            BUDGETS_EXHAUSTED.increment();
+        }
+        if (values[chosen] >= Double.MAX_VALUE)
+        {
+            // No candidate splits the survivors, so try them one at a time.
+            return new Result(survivors.get(0), _oneByOne(survivorCount), searched, searched >= NODE_BUDGET);
+        }
+        return new Result(guesses[chosen], values[chosen], searched, searched >= NODE_BUDGET);
+    }
+
+    /**
+     * Return the expected guesses to solve a set of survivors, counting the next one.
+     */
+    private double _valueOfSet(final long[] set, final int count, final int depth)
+    {
+        if (count <= 2)
+        {
+            return _lowerBound(count);
+        }
+        if (depth == 0 || nodes.get() >= NODE_BUDGET)
+        {
+            return _estimate(count);
+        }
+
+        final SurvivorSet key = new SurvivorSet(set, depth);
+        final Double known = table.get(key);
+        if (known != null)
+        {
+            TRANSPOSITIONS.increment();
+            return known;
+        }
+
+        double best = Double.MAX_VALUE;
+        for (int g = 0; g < guesses.length; g++)
+        {
+            best = Math.min(best, _valueOfGuess(g, set, count, depth, best));
+        }
+        if (best >= Double.MAX_VALUE)
+        {
+            // Nothing cuts against the first bound, so none of the candidates splits the set, as with
+            // light, might, night and so on. Its own members can still be tried one at a time.
+            best = _oneByOne(count);
+        }
+
+        // Values cut short by the budget are only estimates, so they aren't kept.
+        if (nodes.get() < NODE_BUDGET)
+        {
+            table.put(key, best);
+        }
+        return best;
+    }
+
+    /**
+     * Return the expected guesses to solve a set of survivors starting with
+     * this guess, or infinity once it's clear the guess can't beat the bound.
+     * A guess that ties the bound is valued exactly, so ties are settled the
+     * same way whichever thread finds them first.
+     */
+    private double _valueOfGuess(final int guess, final long[] set, final int count, final int depth, final double bound)
+    {
+        nodes.incrementAndGet();
+        final int[] guessParts = parts[guess];
+        final int[] counts = new int[partCounts[guess]];
+        for (int word = 0; word < set.length; word++)
+        {
+            long bits = set[word];
+            while (bits != 0)
+            {
+                counts[guessParts[(word << 6) + Long.numberOfTrailingZeros(bits)]]++;
+                bits &= bits - 1;
+            }
+        }
+
+        // If the guess is a survivor, its own part is solved by this guess.
+        final int solved = survivorIndexes[guess] >= 0 && _contains(set, survivorIndexes[guess]) ? solvedParts[guess] : -1;
+
+        double lowerBound = 1.0;
+        for (int part = 0; part < counts.length; part++)
+        {
+            if (counts[part] > 0 && part != solved)
+            {
+                lowerBound += counts[part] * _lowerBound(counts[part]) / count;
+            }
+        }
+        if (lowerBound > bound)
+        {
+            CUTOFFS.increment();
+            return Double.POSITIVE_INFINITY;
+        }
+
+        // Replace each part's bound with its value, largest parts first, so a bad guess fails early.
+        final Integer[] order = IntStream.range(0, counts.length)
+                .filter(part -> counts[part] > 0 && part != solved)
+                .boxed()
+                .sorted(Comparator.comparing((Integer part) -> counts[part]).reversed())
+                .toArray(Integer[]::new);
+        // A guess that leaves every survivor together tells us nothing.
+        if (counts[order[0]] == count)
+        {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double value = lowerBound;
+        for (Integer part : order)
+        {
+            final long[] members = _members(set, guessParts, part);
+            final double weight = (double) counts[part] / count;
+            value += weight * (_valueOfSet(members, counts[part], depth - 1) - _lowerBound(counts[part]));
+            if (value > bound)
+            {
+                CUTOFFS.increment();
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        return value;
+    }
+
+    private static long[] _members(final long[] set, final int[] guessParts, final int part)
+    {
+        final long[] members = new long[set.length];
+        for (int word = 0; word < set.length; word++)
+        {
+            long bits = set[word];
+            while (bits != 0)
+            {
+                final int survivor = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (guessParts[survivor] == part)
+                {
+                    members[word] |= 1L << survivor;
+                }
+                bits &= bits - 1;
+            }
+        }
+        return members;
+    }
+
+    private static boolean _contains(final long[] set, final int survivor)
+    {
+        return (set[survivor >>> 6] & (1L << survivor)) != 0;
+    }
+
+    /**
+     * The fewest guesses a set of this size could take: one, plus a second
+     * unless the first happens to be the answer. Exact for one or two words.
+     */
+    private static double _lowerBound(final int count)
+    {
+        return count <= 1 ? count : (2.0 * count - 1) / count;
+    }
+
+    /**
+     * The expected guesses to solve a set by trying its words one at a time,
+     * when no guess tells any of the rest apart.
+     */
+    private static double _oneByOne(final int count)
+    {
+        return (count + 1) / 2.0;
+    }
+
+    /**
+     * Rough estimate of the guesses a set of this size takes, past the search horizon.
+     */
+    private static double _estimate(final int count)
+    {
+        return Math.max(_lowerBound(count), 1 + Math.log(count) / Math.log(LEAF_SPLIT));
+    }
+
+    /**
+     * Return how many survivors are expected to be left after the guess. Sorts
+     * the patterns to count them, rather than keeping a count for every pattern.
+     */
+    private static double _singleStepScore(final String guess, final List<String> survivors)
+    {
+        final int[] patterns = new int[survivors.size()];
+        for (int s = 0; s < patterns.length; s++)
+        {
+            patterns[s] = FeedbackPattern.score(guess, survivors.get(s));
+        }
+        Arrays.sort(patterns);
+
+        long squares = 0;
+        int run = 0;
+        for (int s = 0; s < patterns.length; s++)
+        {
+            run = s > 0 && patterns[s] == patterns[s - 1] ? run + 1 : 1;
+            squares += 2L * run - 1;
+        }
+        return (double) squares / survivors.size();
+    }
+}
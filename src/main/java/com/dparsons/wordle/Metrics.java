@@ -0,0 +1,220 @@
+package com.dparsons.wordle;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * In-process registry of counters and histograms, shared by every session
+ * in the JVM. Exposed over JMX, and optionally dumped periodically as text
+ * or JSON. Configured with system properties:
+ *
+ *   wordle.metrics.enabled         - false disables recording entirely (default true)
+ *   wordle.metrics.dump.interval   - seconds between dumps, 0 to never dump (default 0)
+ *   wordle.metrics.dump.format     - text or json (default text)
+ *   wordle.metrics.dump.file       - file to append dumps to (default stderr)
+ *
+ * Instrumented code holds onto its counters and histograms in static fields,
+ * and checks ENABLED before doing anything that costs more than a branch.
+ */
+public final class Metrics
+{
+    public static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("wordle.metrics.enabled", "true"));
+
+    // Histogram names for durations end with this suffix, and hold nanoseconds.
+    public static final String NANOS = ".nanos";
+
+    private static final String OBJECT_NAME = "com.dparsons.wordle:type=Metrics";
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    static
+    {
+        if (ENABLED)
+        {
+            _registerMBean();
+            _schedulePeriodicDump();
+        }
+    }
+
+    private Metrics()
+    {
+    }
+
+    public static Counter counter(final String name)
+    {
+        return COUNTERS.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public static Histogram histogram(final String name)
+    {
+        return HISTOGRAMS.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * Return a start time to pass to {@link Histogram#recordSince(long)}, or
+     * zero without reading the clock if metrics are disabled.
+     */
+    public static long startTimer()
+    {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static Map<String, Long> counterValues()
+    {
+        final Map<String, Long> values = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.get()));
+        return values;
+    }
+
+    public static Map<String, Long> histogramSummaries()
+    {
+        final Map<String, Long> values = new TreeMap<>();
+        HISTOGRAMS.forEach((name, histogram) -> {
+            values.put(name + ".count", histogram.getCount());
+            values.put(name + ".mean", (long) histogram.getMean());
+            values.put(name + ".p50", histogram.getValueAtPercentile(50));
+            values.put(name + ".p99", histogram.getValueAtPercentile(99));
+            values.put(name + ".max", histogram.getMax());
+        });
+        return values;
+    }
+
+    public static String toText()
+    {
+        final StringBuilder text = new StringBuilder();
+        counterValues().forEach((name, value) ->
+                text.append(name).append(' ').append(value).append('\n'));
+        new TreeMap<>(HISTOGRAMS).forEach((name, histogram) -> text.append(name)
+                .append(" count=").append(histogram.getCount())
+                .append(" mean=").append((long) histogram.getMean())
+                .append(" p50=").append(histogram.getValueAtPercentile(50))
+                .append(" p99=").append(histogram.getValueAtPercentile(99))
+                .append(" max=").append(histogram.getMax())
+                .append('\n'));
+        return text.toString();
+    }
+
+    public static String toJson()
+    {
+        final StringBuilder json = new StringBuilder("{\"counters\":{");
+        final String counters = counterValues().entrySet().stream()
+                .map(e -> "\"" + e.getKey() + "\":" + e.getValue())
+                .reduce((a, b) -> a + "," + b)
+                .orElse("");
+        json.append(counters).append("},\"histograms\":{");
+
+        final String histograms = new TreeMap<>(HISTOGRAMS).entrySet().stream()
+                .map(e -> "\"" + e.getKey() + "\":{" +
+                        "\"count\":" + e.getValue().getCount() +
+                        ",\"mean\":" + (long) e.getValue().getMean() +
+                        ",\"p50\":" + e.getValue().getValueAtPercentile(50) +
+                        ",\"p99\":" + e.getValue().getValueAtPercentile(99) +
+                        ",\"max\":" + e.getValue().getMax() + "}")
+                .reduce((a, b) -> a + "," + b)
+                .orElse("");
+        return json.append(histograms).append("}}").toString();
+    }
+
+    public static void reset()
+    {
+        COUNTERS.values().forEach(Counter::reset);
+        HISTOGRAMS.values().forEach(Histogram::reset);
+    }
+
+    private static void _registerMBean()
+    {
+        final MetricsMXBean bean = new MetricsMXBean()
+        {
+            @Override
+            public Map<String, Long> getCounters()
+            {
+                return counterValues();
+            }
+
+            @Override
+            public Map<String, Long> getHistograms()
+            {
+                return histogramSummaries();
+            }
+
+            @Override
+            public String getText()
+            {
+                return toText();
+            }
+
+            @Override
+            public String getJson()
+            {
+                return toJson();
+            }
+
+            @Override
+            public void reset()
+            {
+                Metrics.reset();
+            }
+        };
+
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(OBJECT_NAME));
+        }
+        catch (JMException e)
+        {
+            System.out.println("[Metrics] Unable to register the metrics MBean: " + e.getMessage());
+        }
+    }
+
+    private static void _schedulePeriodicDump()
+    {
+        final long interval = Long.getLong("wordle.metrics.dump.interval", 0);
+        if (interval <= 0)
+        {
+            return;
+        }
+
+        final boolean json = "json".equalsIgnoreCase(System.getProperty("wordle.metrics.dump.format", "text"));
+        final PrintStream out = _openDumpStream(System.getProperty("wordle.metrics.dump.file"));
+
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> {
+            out.println(json ? toJson() : toText());
+            out.flush();
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private static PrintStream _openDumpStream(final String filename)
+    {
+        if (filename == null)
+        {
+            return System.err;
+        }
+
+        try
+        {
+            return new PrintStream(new FileOutputStream(filename, true), true);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
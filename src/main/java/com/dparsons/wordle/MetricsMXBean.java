@@ -0,0 +1,21 @@
+package com.dparsons.wordle;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics registry, registered as
+ * com.dparsons.wordle:type=Metrics.
+ */
+public interface MetricsMXBean
+{
+    Map<String, Long> getCounters();
+
+    // Histogram summaries, keyed by "name.count", "name.p50", "name.p99" and so on.
+    Map<String, Long> getHistograms();
+
+    String getText();
+
+    String getJson();
+
+    void reset();
+}
@@ -0,0 +1,298 @@
+package com.dparsons.wordle;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * A multi-board game, Quordle or Octordle style: every guess is played on
+ * all boards at once, and each board has its own answer. Keeps one view of
+ * a single pinned snapshot per board, so the boards share the dictionary
+ * and only their survivors differ.
+ *
+ * A guess is scored in one pass over every unsolved board's survivors,
+ * stored end to end in the same letter columns, and is worth the sum of
+ * what its feedback tells us about each board (the entropy of the patterns
+ * it gives that board's survivors, in bits). A board down to one word is
+ * always played first, since that word has to be guessed anyway.
+ *
+ * Candidates are every board's survivors, then the rest of the Wikipedia
+ * dictionary, scored most frequent first until -Dwordle.multiboard.budget.ms
+ * (200) runs out, so the time per turn doesn't grow with the number of boards.
+ */
+public class MultiBoardSession
+{
+    public static final int MAXIMUM_BOARDS = 32;
+
+    private static final Histogram RECOMMENDATION_TIME = Metrics.histogram("multiboard.recommend" + Metrics.NANOS);
+    private static final Histogram CANDIDATES_SCORED = Metrics.histogram("multiboard.candidates");
+    private static final Counter DEADLINES_REACHED = Metrics.counter("multiboard.deadlines");
+
+    private static final Duration BUDGET = Duration.ofMillis(Long.getLong("wordle.multiboard.budget.ms", 200));
+
+    private final int wordLength;
+    private final Dictionary[] boards;
+    private final List<List<WordGuess>> guesses = new ArrayList<>();
+    private final boolean[] solved;
+
+    public MultiBoardSession(final DictionarySnapshot snapshot, final int boardCount)
+    {
+        if (boardCount < 1 || boardCount > MAXIMUM_BOARDS)
+        {
+            throw new IllegalArgumentException("Board count must be between 1 and " + MAXIMUM_BOARDS + ": " + boardCount);
+        }
+
+        this.wordLength = snapshot.getWordLength();
+        this.boards = new Dictionary[boardCount];
+        this.solved = new boolean[boardCount];
+        for (int board = 0; board < boardCount; board++)
+        {
+            this.boards[board] = new Dictionary(snapshot);
+            this.guesses.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Record a guess's feedback on every board, and return the suggestion for
+     * the next guess, or null if every board is solved or none has a word left.
+     * Feedback holds one scored guess per board; entries for boards that were
+     * already solved are ignored.
+     */
+    public String applyGuess(final List<WordGuess> feedback)
+    {
+        if (feedback.size() != this.boards.length)
+        {
+            throw new IllegalArgumentException("Expected feedback for " + this.boards.length + " boards, got " + feedback.size());
+        }
+
+        // Boards are narrowed independently, so they're filtered side by side.
+        IntStream.range(0, this.boards.length)
+                .filter(board -> !this.solved[board])
+                .parallel()
+                .forEach(board ->
+                {
+                    final WordGuess guess = feedback.get(board);
+                    this.guesses.get(board).add(guess);
+                    if (guess.isCorrect())
+                    {
+                        this.solved[board] = true;
+                    }
+                    else
+                    {
+                        this.boards[board].filter(new DictionaryFilter(this.guesses.get(board)));
+                    }
+                });
+
+        return recommend();
+    }
+
+    /**
+     * Return the best guess across the unsolved boards, or null if there is none.
+     */
+    public String recommend()
+    {
+        final long start = Metrics.startTimer();
+
+        final List<String> survivors = new ArrayList<>();
+        final List<Integer> boardEnds = new ArrayList<>();
+        for (int board = 0; board < this.boards.length; board++)
+        {
+            if (this.solved[board])
+            {
+                continue;
+            }
+
+            final int before = survivors.size();
+            this.boards[board].forEachWord(survivors::add);
+            if (survivors.size() - before == 1)
+            {
+                RECOMMENDATION_TIME.recordSince(start);
+                return survivors.get(before);
+            }
+
+            // A board with no words left can't be helped by any guess.
+            if (survivors.size() > before)
+            {
+                boardEnds.add(survivors.size());
+            }
+        }
+        if (survivors.isEmpty())
+        {
+            return null;
+        }
+
+        final String recommendation = _bestGuess(survivors, boardEnds.stream().mapToInt(Integer::intValue).toArray(),
+                System.nanoTime() + BUDGET.toNanos());
+        RECOMMENDATION_TIME.recordSince(start);
+        return recommendation;
+    }
+
+    public int getWordLength()
+    {
+        return this.wordLength;
+    }
+
+    public int getBoardCount()
+    {
+        return this.boards.length;
+    }
+
+    public boolean isSolved(final int board)
+    {
+        return this.solved[board];
+    }
+
+    /**
+     * Whether every board has been solved.
+     */
+    public boolean isFinished()
+    {
+        for (final boolean boardSolved : this.solved)
+        {
+            if (!boardSolved)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getSurvivorCount(final int board)
+    {
+        return this.solved[board] ? 0 : this.boards[board].getSurvivorCount();
+    }
+
+    public List<WordGuess> getGuesses(final int board)
+    {
+        return Collections.unmodifiableList(this.guesses.get(board));
+    }
+
+    /**
+     * Score candidates against every board's survivors until the deadline,
+     * and return the one that tells us the most in total.
+     */
+    private String _bestGuess(final List<String> survivors, final int[] boardEnds, final long deadlineNanos)
+    {
+        final Search search = new Search(survivors, boardEnds, deadlineNanos);
+        for (String word : survivors)
+        {
+            if (!search.test(word))
+            {
+                break;
+            }
+        }
+
+        // Every board has had the same guesses, so any of them can supply the other words.
+        if (search.complete)
+        {
+            _firstUnsolvedBoard().forEachGuess(search);
+        }
+
+        CANDIDATES_SCORED.record(search.scored);
+        if (!search.complete)
+        {
+            DEADLINES_REACHED.increment();
+        }
+        return search.bestWord;
+    }
+
+    /**
+     * Scores each word it visits against all the boards at once, until the deadline passes.
+     */
+    private static final class Search implements Predicate<String>
+    {
+        private final LetterColumns columns;
+        private final int[] boardEnds;
+        private final long deadlineNanos;
+        private final FeedbackScorer scorer = FeedbackScorers.get();
+        private final int[] patterns;
+        private final int[] counts;
+
+        // Survivors of one board are often survivors of another, and are only scored once.
+        private final Set<String> seen = new HashSet<>();
+
+        private int scored = 0;
+        private String bestWord;
+        private double bestInformation = -1;
+        private boolean complete = true;
+
+        private Search(final List<String> survivors, final int[] boardEnds, final long deadlineNanos)
+        {
+            this.columns = LetterColumns.of(survivors);
+            this.boardEnds = boardEnds;
+            this.deadlineNanos = deadlineNanos;
+            this.patterns = new int[survivors.size()];
+            this.counts = new int[FeedbackPattern.patternCount(survivors.get(0).length())];
+            this.bestWord = survivors.get(0);
+        }
+
+        @Override
+        public boolean test(final String word)
+        {
+            if (System.nanoTime() - deadlineNanos >= 0)
+            {
+                complete = false;
+                return false;
+            }
+            if (!seen.add(word))
+            {
+                return true;
+            }
+
+            scored++;
+            scorer.score(LetterColumns.encode(word), columns, patterns);
+            final double information = _information(patterns, boardEnds, counts);
+            if (information > bestInformation)
+            {
+                bestWord = word;
+                bestInformation = information;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Sum over boards of the entropy of the patterns a guess gives the board's survivors.
+     */
+    private static double _information(final int[] patterns, final int[] boardEnds, final int[] counts)
+    {
+        double information = 0;
+        int from = 0;
+        for (final int to : boardEnds)
+        {
+            for (int i = from; i < to; i++)
+            {
+                counts[patterns[i]]++;
+            }
+
+            // Visit the board's patterns rather than every possible one, which for long words is far more.
+            final int size = to - from;
+            double sumOfLogs = 0;
+            for (int i = from; i < to; i++)
+            {
+                final int count = counts[patterns[i]];
+                if (count > 1)
+                {
+                    sumOfLogs += count * Math.log(count);
+                }
+                counts[patterns[i]] = 0;
+            }
+            information += (Math.log(size) - sumOfLogs / size) / Math.log(2);
+            from = to;
+        }
+        return information;
+    }
+
+    private Dictionary _firstUnsolvedBoard()
+    {
+        for (int board = 0; board < this.boards.length; board++)
+        {
+            if (!this.solved[board])
+            {
+                return this.boards[board];
+            }
+        }
+        throw new IllegalStateException("Every board is solved");
+    }
+}
@@ -0,0 +1,149 @@
+package com.dparsons.wordle;
+
+import java.util.*;
+
+/**
+ * Command line solver for multi-board games (Quordle, Octordle and so on).
+ * Each turn takes one guess, then its scores on every board still unsolved.
+ */
+public class MultiBoardSolver
+{
+    private final WordleDb db;
+    private final DictionarySnapshots snapshots;
+    private final int boardCount;
+    private final Scanner scanner = new Scanner(System.in);
+
+    public static void main(String[] args)
+    {
+        final String filename = args[0];
+        final int boardCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        final MultiBoardSolver solver = new MultiBoardSolver(filename, boardCount);
+        solver.run();
+    }
+
+    public MultiBoardSolver(final String dictionaryFilename, final int boardCount)
+    {
+        this.db = new WordleDb("localhost", 5432, "wordle_solver", "password");
+        this.snapshots = new DictionarySnapshots(dictionaryFilename, this.db);
+        this.boardCount = boardCount;
+    }
+
+    public void run()
+    {
+        do
+        {
+            System.out.println("\nStarting a " + this.boardCount + "-board game...\n"
+                    + "If a suggested guess is invalid, enter 'invalid' when scoring.\n");
+
+            // The first guess sets the word length for the game.
+            final String firstGuess = _promptForGuess(0);
+            _playGame(new MultiBoardSession(this.snapshots.current(firstGuess.length()), this.boardCount), firstGuess);
+        }
+        while (_promptPlayAgain());
+    }
+
+    private void _playGame(final MultiBoardSession session, final String firstGuess)
+    {
+        String guess = firstGuess;
+        int turns = 0;
+        while (true)
+        {
+            final List<WordGuess> feedback = _fetchFeedback(session, guess);
+            final WordGuess invalidGuess = feedback.stream()
+                    .filter(boardGuess -> boardGuess != null && boardGuess.isInvalid())
+                    .findFirst()
+                    .orElse(null);
+            if (invalidGuess != null)
+            {
+                this.db.storeInvalidWord(invalidGuess.toString());
+                this.snapshots.refreshAsync();
+            }
+            else
+            {
+                turns++;
+            }
+
+            System.out.println("Suggesting next guess...");
+            final String nextBestGuess = session.applyGuess(feedback);
+            if (session.isFinished())
+            {
+                break;
+            }
+            System.out.println(nextBestGuess != null ? "Suggestion: " + nextBestGuess + "\n" : "No suggestion\n");
+            guess = _promptForGuess(session.getWordLength());
+        }
+
+        System.out.println("\nAll " + this.boardCount + " boards solved in " + turns + " guesses");
+    }
+
+    /**
+     * Prompt for a guess of the given length, or of any supported length if zero.
+     */
+    private String _promptForGuess(final int wordLength)
+    {
+        String guess = _prompt("Enter a word guess: ").toLowerCase();
+        while (!WordleConstants.isSupportedWordLength(guess.length()) || (wordLength > 0 && guess.length() != wordLength))
+        {
+            guess = _prompt("Enter a word guess: ").toLowerCase();
+        }
+        return guess;
+    }
+
+    /**
+     * Prompt for the guess's scores on each unsolved board. An invalid guess
+     * is invalid on every board, so it's only asked for once.
+     */
+    private List<WordGuess> _fetchFeedback(final MultiBoardSession session, final String guess)
+    {
+        final List<WordGuess> feedback = new ArrayList<>();
+        for (int board = 0; board < session.getBoardCount(); board++)
+        {
+            if (session.isSolved(board))
+            {
+                feedback.add(null);
+                continue;
+            }
+
+            WordGuess scored = null;
+            while (scored == null)
+            {
+                final String scores = _prompt("Enter the scores for board " + (board + 1) + ": ").trim();
+                if ("invalid".equalsIgnoreCase(scores))
+                {
+                    return Collections.nCopies(session.getBoardCount(), WordGuess.invalid(guess));
+                }
+                scored = _parseScores(guess, scores);
+            }
+            feedback.add(scored);
+        }
+        return feedback;
+    }
+
+    /**
+     * Return the guess with the scores, or null if they aren't valid scores for it.
+     */
+    private static WordGuess _parseScores(final String guess, final String scores)
+    {
+        try
+        {
+            return WordGuess.fromScores(guess, scores);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.out.println(e.getMessage());
+            return null;
+        }
+    }
+
+    private String _prompt(final String message)
+    {
+        System.out.print(message);
+        return scanner.nextLine();
+    }
+
+    private boolean _promptPlayAgain()
+    {
+        System.out.print("\nPlay again? (y/n): ");
+        return scanner.hasNextLine() && scanner.nextLine().trim().toLowerCase().startsWith("y");
+    }
+}
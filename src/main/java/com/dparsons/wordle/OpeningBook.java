@@ -0,0 +1,126 @@
+package com.dparsons.wordle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precomputed suggestions for the early turns of a game that opens
+ * with a given word. Second guesses are indexed by the feedback pattern
+ * of the opening guess. Third guesses are indexed by both patterns, and
+ * only apply if the player followed the book on the second turn.
+ */
+public class OpeningBook
+{
+    private static final int NO_PATTERN = -1;
+
+    private final String openingWord;
+    private final String[] secondGuesses = new String[FeedbackPattern.PATTERN_COUNT];
+    private final String[] thirdGuesses = new String[FeedbackPattern.PATTERN_COUNT * FeedbackPattern.PATTERN_COUNT];
+
+    public OpeningBook(final String openingWord)
+    {
+        this.openingWord = openingWord;
+    }
+
+    public String getOpeningWord()
+    {
+        return openingWord;
+    }
+
+    /**
+     * Return the book's suggestion for the next guess, or null if the
+     * game has left the book and the suggestion must be computed live.
+     */
+    public String lookup(final List<WordGuess> guesses)
+    {
+        if (guesses.isEmpty() || guesses.size() > 2 || guesses.stream().anyMatch(WordGuess::isInvalid))
+        {
+            return null;
+        }
+
+        final WordGuess openingGuess = guesses.get(0);
+        if (!openingWord.equals(openingGuess.toString()))
+        {
+            return null;
+        }
+
+        final int firstPattern = openingGuess.getPattern();
+        if (guesses.size() == 1)
+        {
+            return secondGuesses[firstPattern];
+        }
+
+        final WordGuess secondGuess = guesses.get(1);
+        if (!secondGuess.toString().equals(secondGuesses[firstPattern]))
+        {
+            return null;
+        }
+        return thirdGuesses[_thirdGuessIndex(firstPattern, secondGuess.getPattern())];
+    }
+
+    public String getSecondGuess(final int firstPattern)
+    {
+        return secondGuesses[firstPattern];
+    }
+
+    public String getThirdGuess(final int firstPattern, final int secondPattern)
+    {
+        return thirdGuesses[_thirdGuessIndex(firstPattern, secondPattern)];
+    }
+
+    /**
+     * Record a book entry. A second pattern of -1 denotes a second
+     * guess, which matches how entries are stored in the database.
+     */
+    public void put(final int firstPattern, final int secondPattern, final String nextGuess)
+    {
+        if (secondPattern == NO_PATTERN)
+        {
+            secondGuesses[firstPattern] = nextGuess;
+        }
+        else
+        {
+            thirdGuesses[_thirdGuessIndex(firstPattern, secondPattern)] = nextGuess;
+        }
+    }
+
+    public void putSecondGuess(final int firstPattern, final String nextGuess)
+    {
+        put(firstPattern, NO_PATTERN, nextGuess);
+    }
+
+    public void putThirdGuess(final int firstPattern, final int secondPattern, final String nextGuess)
+    {
+        put(firstPattern, secondPattern, nextGuess);
+    }
+
+    /**
+     * Return the entries of the book as rows of
+     * [ opening word, first pattern, second pattern, next guess ].
+     */
+    public List<Object[]> toRows()
+    {
+        final List<Object[]> rows = new ArrayList<>();
+        for (int first = 0; first < FeedbackPattern.PATTERN_COUNT; first++)
+        {
+            if (secondGuesses[first] != null)
+            {
+                rows.add(new Object[] { openingWord, first, NO_PATTERN, secondGuesses[first] });
+            }
+            for (int second = 0; second < FeedbackPattern.PATTERN_COUNT; second++)
+            {
+                final String thirdGuess = thirdGuesses[_thirdGuessIndex(first, second)];
+                if (thirdGuess != null)
+                {
+                    rows.add(new Object[] { openingWord, first, second, thirdGuess });
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static int _thirdGuessIndex(final int firstPattern, final int secondPattern)
+    {
+        return firstPattern * FeedbackPattern.PATTERN_COUNT + secondPattern;
+    }
+}
@@ -0,0 +1,99 @@
+package com.dparsons.wordle;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Job that precomputes the opening book for one or more opening words,
+ * and stores it in the database. The solver loads these books on startup
+ * and serves early turns from them instead of computing suggestions live.
+ *
+ * Usage: OpeningBookBuilder dictionary.txt depth word [word ...]
+ * where a depth of 1 computes second guesses and 2 also computes third guesses.
+ */
+public class OpeningBookBuilder
+{
+    private final Dictionary dictionary;
+    private final int depth;
+
+    public static void main(String[] args)
+    {
+        final String filename = args[0];
+        final int depth = Integer.parseInt(args[1]);
+        final WordleDb db = new WordleDb("localhost", 5432, "wordle_solver", "password");
+        final DictionarySnapshots snapshots = new DictionarySnapshots(filename, db);
+        final OpeningBookBuilder builder = new OpeningBookBuilder(new Dictionary(snapshots.current()), depth);
+
+        for (int i = 2; i < args.length; i++)
+        {
+            final String openingWord = args[i].toLowerCase();
+            System.out.println("Building opening book for " + openingWord + "...");
+            final OpeningBook book = builder.build(openingWord);
+            db.storeOpeningBook(book);
+            System.out.println("Opening book stored for " + openingWord + ".");
+        }
+    }
+
+    public OpeningBookBuilder(final Dictionary dictionary, final int depth)
+    {
+        this.dictionary = dictionary;
+        this.depth = depth;
+    }
+
+    public OpeningBook build(final String openingWord)
+    {
+        final OpeningBook book = new OpeningBook(openingWord);
+
+        for (int firstPattern = 0; firstPattern < FeedbackPattern.PATTERN_COUNT; firstPattern++)
+        {
+            if (firstPattern == FeedbackPattern.SOLVED)
+            {
+                continue;
+            }
+
+            final List<WordGuess> firstGuesses = ImmutableList.of(WordGuess.fromPattern(openingWord, firstPattern));
+            final Dictionary afterFirstGuess = _narrow(this.dictionary, firstGuesses);
+            final String secondGuess = new GuessRecommender(afterFirstGuess).recommend(firstGuesses);
+            if (secondGuess == null)
+            {
+                // No word produces this pattern, so it can never be looked up.
+                continue;
+            }
+            book.putSecondGuess(firstPattern, secondGuess);
+
+            if (depth < 2)
+            {
+                continue;
+            }
+
+            for (int secondPattern = 0; secondPattern < FeedbackPattern.PATTERN_COUNT; secondPattern++)
+            {
+                if (secondPattern == FeedbackPattern.SOLVED)
+                {
+                    continue;
+                }
+
+                final List<WordGuess> secondGuesses = new ImmutableList.Builder<WordGuess>()
+                        .addAll(firstGuesses)
+                        .add(WordGuess.fromPattern(secondGuess, secondPattern))
+                        .build();
+                final Dictionary afterSecondGuess = _narrow(afterFirstGuess, secondGuesses);
+                final String thirdGuess = new GuessRecommender(afterSecondGuess).recommend(secondGuesses);
+                if (thirdGuess != null)
+                {
+                    book.putThirdGuess(firstPattern, secondPattern, thirdGuess);
+                }
+            }
+        }
+
+        return book;
+    }
+
+    private static Dictionary _narrow(final Dictionary dictionary, final List<WordGuess> guesses)
+    {
+        final Dictionary narrowed = dictionary.copy();
+        narrowed.filter(new DictionaryFilter(guesses));
+        return narrowed;
+    }
+}
@@ -0,0 +1,108 @@
+package com.dparsons.wordle;
+
+/**
+ * The best guess an {@link AnytimeRecommender} has found so far, and how
+ * much of the search it covered to find it.
+ */
+public final class Recommendation
+{
+    private final String word;
+    private final int candidatesScored;
+    private final int candidateCount;
+    private final double expectedSurvivors;
+    private final double margin;
+    private final int sampleSize;
+    private final boolean complete;
+
+    Recommendation(final String word,
+                   final int candidatesScored,
+                   final int candidateCount,
+                   final double expectedSurvivors,
+                   final double margin,
+                   final int sampleSize,
+                   final boolean complete)
+    {
+        this.word = word;
+        this.candidatesScored = candidatesScored;
+        this.candidateCount = candidateCount;
+        this.expectedSurvivors = expectedSurvivors;
+        this.margin = margin;
+        this.sampleSize = sampleSize;
+        this.complete = complete;
+    }
+
+    /**
+     * Return the suggested guess, or null if no word survived.
+     */
+    public String getWord()
+    {
+        return word;
+    }
+
+    /**
+     * Return how many candidate guesses were covered, either scored or pruned
+     * as no better than one that was.
+     */
+    public int getCandidatesScored()
+    {
+        return candidatesScored;
+    }
+
+    public int getCandidateCount()
+    {
+        return candidateCount;
+    }
+
+    /**
+     * Return the fraction of candidate guesses scored, from 0 to 1.
+     */
+    public double getCoverage()
+    {
+        return candidateCount == 0 ? 1.0 : (double) candidatesScored / candidateCount;
+    }
+
+    /**
+     * Return how many words are expected to survive the suggested guess, or
+     * NaN if the suggestion is the unscored frequency pick.
+     */
+    public double getExpectedSurvivors()
+    {
+        return expectedSurvivors;
+    }
+
+    /**
+     * Return the half-width of the 95% confidence interval around the expected
+     * survivors, or zero if the guess was scored against every survivor.
+     */
+    public double getMargin()
+    {
+        return margin;
+    }
+
+    /**
+     * Return how many survivors the guesses were scored against, or zero if
+     * they were scored against all of them.
+     */
+    public int getSampleSize()
+    {
+        return sampleSize;
+    }
+
+    /**
+     * Whether the search finished before the deadline, so no better guess
+     * among the candidates was left unscored.
+     */
+    public boolean isComplete()
+    {
+        return complete;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s (scored %d of %d, expected survivors %.2f%s%s)",
+                word, candidatesScored, candidateCount, expectedSurvivors,
+                sampleSize > 0 ? String.format(" +/- %.2f from a sample of %d", margin, sampleSize) : "",
+                complete ? "" : ", deadline reached");
+    }
+}
@@ -0,0 +1,29 @@
+package com.dparsons.wordle;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one search for the next guess to suggest.
+ */
+@Name("com.dparsons.wordle.Recommendation")
+@Label("Recommendation")
+@Category({ "Wordle Solver", "Recommender" })
+@Description("Searching the dictionary for the next guess to suggest")
+public class RecommendationEvent extends Event
+{
+    @Label("Turn")
+    int turn;
+
+    @Label("Letters Tried")
+    int lettersTried;
+
+    @Label("Candidates Scanned")
+    int candidatesScanned;
+
+    @Label("Suggestion")
+    String suggestion;
+}
@@ -0,0 +1,80 @@
+package com.dparsons.wordle;
+
+/**
+ * Scores one candidate at a time. Used wherever the vector scorer is unavailable.
+ */
+public class ScalarFeedbackScorer implements FeedbackScorer
+{
+    @Override
+    public void score(final byte[] guess, final LetterColumns candidates, final int[] patterns)
+    {
+        for (int i = 0; i < candidates.size(); i++)
+        {
+            patterns[i] = score(guess, candidates, i);
+        }
+    }
+
+    @Override
+    public int retainMatching(final byte[] guess,
+                              final int pattern,
+                              final LetterColumns candidates,
+                              final int from,
+                              final int to,
+                              final long[] survivors)
+    {
+        int evaluated = 0;
+        for (int i = from; i < to; i++)
+        {
+            if ((survivors[i >>> 6] & (1L << i)) != 0)
+            {
+                evaluated++;
+                if (score(guess, candidates, i) != pattern)
+                {
+                    survivors[i >>> 6] &= ~(1L << i);
+                }
+            }
+        }
+        return evaluated;
+    }
+
+    /**
+     * Score a guess against the candidate at the given index. Same algorithm
+     * as {@link FeedbackPattern#score(String, String)}, over encoded letters.
+     */
+    static int score(final byte[] guess, final LetterColumns candidates, final int index)
+    {
+        final int length = guess.length;
+        int matched = 0;
+        for (int position = 0; position < length; position++)
+        {
+            if (guess[position] == candidates.letter(position, index))
+            {
+                matched |= 1 << position;
+            }
+        }
+
+        int pattern = 0;
+        for (int position = 0; position < length; position++)
+        {
+            int score = 0;
+            if (guess[position] == candidates.letter(position, index))
+            {
+                score = 2;
+            }
+            else
+            {
+                for (int other = 0; other < length; other++)
+                {
+                    if ((matched & (1 << other)) == 0 && guess[position] == candidates.letter(other, index))
+                    {
+                        matched |= 1 << other;
+                        score = 1;
+                        break;
+                    }
+                }
+            }
+            pattern = pattern * 3 + score;
+        }
+        return pattern;
+    }
+}
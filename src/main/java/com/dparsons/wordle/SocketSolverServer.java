@@ -0,0 +1,595 @@
+package com.dparsons.wordle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Binary front end for the {@link SolverService} on a Unix domain socket,
+ * for clients on the same host that can't afford HTTP and JSON around a
+ * sub-millisecond recommendation.
+ *
+ * Every frame is an int length (of the rest of the frame), a type byte and
+ * an int request id, then the payload, all big-endian. Words are packed five
+ * bits per letter and feedback is its base-3 pattern, as in {@link WordGuess}:
+ *
+ *   START  1  byte word length                               -> long game id
+ *   GUESS  2  long game id, byte word length, long packed word,
+ *             int pattern (-1 if Wordle rejected the word)   -> long packed suggestion (-1 if none)
+ *   END    3  long game id                                   -> (empty)
+ *
+ * A response has the same layout with a status in place of the type: OK (0),
+ * BAD_REQUEST (1), NOT_FOUND (2) or ERROR (3), the last three followed by a
+ * UTF-8 message. Responses carry the id of their request and come back in
+ * the order the requests were sent, so a client can pipeline as many
+ * requests as it likes on one connection. A frame that can't be parsed is
+ * answered with BAD_REQUEST and request id 0, and closes the connection, as
+ * does an unexpected error with ERROR. Other connections carry on.
+ *
+ * Connections are shared out among -Dwordle.service.socket.threads (2)
+ * selector threads, which only read and write. Requests can block on the
+ * database, so they're handled on -Dwordle.service.socket.workers (16)
+ * worker threads, one connection's requests at a time and in order.
+ */
+public class SocketSolverServer implements Closeable
+{
+    public static final byte START = 1;
+    public static final byte GUESS = 2;
+    public static final byte END = 3;
+
+    public static final byte OK = 0;
+    public static final byte BAD_REQUEST = 1;
+    public static final byte NOT_FOUND = 2;
+    public static final byte ERROR = 3;
+
+    public static final long NO_SUGGESTION = -1;
+    public static final int INVALID_PATTERN = -1;
+
+    private static final int THREADS = Integer.getInteger("wordle.service.socket.threads", 2);
+    private static final int WORKERS = Integer.getInteger("wordle.service.socket.workers", 16);
+
+    private static final Histogram REQUEST_TIME = Metrics.histogram("service.socket.request" + Metrics.NANOS);
+    private static final Counter CONNECTIONS = Metrics.counter("service.socket.connections");
+    private static final Counter ERRORS = Metrics.counter("service.socket.errors");
+
+    // Frame header after the length: type or status, then request id.
+    private static final int HEADER_BYTES = Byte.BYTES + Integer.BYTES;
+    private static final int MAXIMUM_REQUEST_BYTES = 64;
+    private static final int MAXIMUM_MESSAGE_BYTES = 200;
+    private static final int MAXIMUM_RESPONSE_BYTES = Integer.BYTES + HEADER_BYTES + MAXIMUM_MESSAGE_BYTES;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final SolverService service;
+    private final Path path;
+    private final ServerSocketChannel serverChannel;
+    private final SelectorLoop[] loops;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private final ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, WORKERS), runnable -> {
+        final Thread thread = new Thread(runnable, "service-socket-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running = true;
+
+    public SocketSolverServer(final SolverService service, final Path path)
+    {
+        this.service = service;
+        this.path = path;
+        try
+        {
+            // A socket file left behind by a server that didn't shut down cleanly would stop the bind.
+            Files.deleteIfExists(path);
+            this.serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            this.serverChannel.bind(UnixDomainSocketAddress.of(path));
+            this.serverChannel.configureBlocking(false);
+
+            this.loops = new SelectorLoop[Math.max(1, THREADS)];
+            for (int i = 0; i < this.loops.length; i++)
+            {
+                this.loops[i] = new SelectorLoop(Selector.open());
+            }
+            this.serverChannel.register(this.loops[0].selector, SelectionKey.OP_ACCEPT);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Error starting the socket server on " + path, e);
+        }
+
+        for (int i = 0; i < this.loops.length; i++)
+        {
+            final Thread thread = new Thread(this.loops[i], "service-socket-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public Path getPath()
+    {
+        return this.path;
+    }
+
+    @Override
+    public void close()
+    {
+        this.running = false;
+        for (SelectorLoop loop : this.loops)
+        {
+            loop.selector.wakeup();
+        }
+        this.workers.shutdown();
+        try
+        {
+            this.serverChannel.close();
+            Files.deleteIfExists(this.path);
+        }
+        catch (IOException e)
+        {
+            System.out.println("[SocketSolverServer] Error closing the socket: " + e.getMessage());
+        }
+    }
+
+    /**
+     * One selector thread, with the connections assigned to it.
+     */
+    private final class SelectorLoop implements Runnable
+    {
+        private final Selector selector;
+        private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+        // Connections the workers have answered requests on, to be written.
+        private final Queue<Connection> answered = new ConcurrentLinkedQueue<>();
+
+        private SelectorLoop(final Selector selector)
+        {
+            this.selector = selector;
+        }
+
+        @Override
+        public void run()
+        {
+            while (running)
+            {
+                try
+                {
+                    this.selector.select();
+                    _registerAccepted();
+                    _writeAnswered();
+                    for (SelectionKey key : this.selector.selectedKeys())
+                    {
+                        _handle(key);
+                    }
+                    this.selector.selectedKeys().clear();
+                }
+                catch (IOException e)
+                {
+                    System.out.println("[SocketSolverServer] Error selecting: " + e.getMessage());
+                }
+            }
+
+            for (SelectionKey key : this.selector.keys())
+            {
+                _close(key);
+            }
+            try
+            {
+                this.selector.close();
+            }
+            catch (IOException e)
+            {
+                // Closing anyway.
+            }
+        }
+
+        private void _registerAccepted() throws IOException
+        {
+            SocketChannel channel;
+            while ((channel = this.accepted.poll()) != null)
+            {
+                final SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+                key.attach(new Connection(key, this));
+            }
+        }
+
+        private void _writeAnswered()
+        {
+            Connection connection;
+            while ((connection = this.answered.poll()) != null)
+            {
+                synchronized (connection)
+                {
+                    connection.flushQueued = false;
+                }
+                if (connection.key.isValid())
+                {
+                    _service(connection, false, true);
+                }
+            }
+        }
+
+        private void _handle(final SelectionKey key)
+        {
+            if (!key.isValid())
+            {
+                return;
+            }
+            if (key.isAcceptable())
+            {
+                try
+                {
+                    _accept();
+                }
+                catch (IOException e)
+                {
+                    System.out.println("[SocketSolverServer] Error accepting a connection: " + e.getMessage());
+                }
+                return;
+            }
+            _service((Connection) key.attachment(), key.isReadable(), key.isWritable());
+        }
+
+        /**
+         * Write what the connection has to write, then read what it has to read.
+         * Any error closes that connection and no other.
+         */
+        private void _service(final Connection connection, final boolean readable, final boolean writable)
+        {
+            try
+            {
+                if (writable)
+                {
+                    connection.write();
+                }
+                if (readable && connection.key.isValid())
+                {
+                    connection.read();
+                }
+            }
+            catch (IOException e)
+            {
+                // The client went away.
+                ERRORS.increment();
+                _close(connection.key);
+            }
+            catch (RuntimeException e)
+            {
+                connection.fail(e);
+            }
+        }
+
+        private void _accept() throws IOException
+        {
+            final SocketChannel channel = serverChannel.accept();
+            if (channel == null)
+            {
+                return;
+            }
+            channel.configureBlocking(false);
+            CONNECTIONS.increment();
+
+            final SelectorLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+            loop.accepted.add(channel);
+            if (loop != this)
+            {
+                loop.selector.wakeup();
+            }
+            else
+            {
+                _registerAccepted();
+            }
+        }
+    }
+
+    /**
+     * One client. The selector thread reads frames off the socket into a
+     * queue of requests, and one worker at a time takes them in order and
+     * adds their responses to the output, which the selector thread writes.
+     * Room is kept in the output for every request taken, and reading stops
+     * while there isn't any, so a client that doesn't read its responses
+     * can't run us out of memory.
+     */
+    private final class Connection
+    {
+        private final SelectionKey key;
+        private final SelectorLoop loop;
+
+        // Only used on the selector thread.
+        private final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+
+        // Only used by the worker handling this connection's requests.
+        private final ByteBuffer response = ByteBuffer.allocate(MAXIMUM_RESPONSE_BYTES);
+
+        // Guarded by this.
+        private final Queue<ByteBuffer> requests = new ArrayDeque<>();
+        private final ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+        private int unanswered = 0;
+        private boolean working = false;
+        private boolean flushQueued = false;
+
+        private Connection(final SelectionKey key, final SelectorLoop loop)
+        {
+            this.key = key;
+            this.loop = loop;
+        }
+
+        private void read() throws IOException
+        {
+            if (((SocketChannel) this.key.channel()).read(this.in) < 0)
+            {
+                _close(this.key);
+                return;
+            }
+            _takeRequests();
+        }
+
+        private void write() throws IOException
+        {
+            synchronized (this)
+            {
+                if (this.out.position() > 0)
+                {
+                    this.out.flip();
+                    ((SocketChannel) this.key.channel()).write(this.out);
+                    this.out.compact();
+                }
+            }
+            // Writing may have made room for requests left in the input.
+            _takeRequests();
+        }
+
+        /**
+         * Queue every complete frame there's room to answer, hand them to a
+         * worker if none is on this connection, and choose what to wait for next.
+         */
+        private void _takeRequests()
+        {
+            this.in.flip();
+            synchronized (this)
+            {
+                while (this.in.remaining() >= Integer.BYTES && _hasRoom())
+                {
+                    final int length = this.in.getInt(this.in.position());
+                    if (length < HEADER_BYTES || length > MAXIMUM_REQUEST_BYTES)
+                    {
+                        throw new IllegalArgumentException("Bad frame length: " + length);
+                    }
+                    if (this.in.remaining() < Integer.BYTES + length)
+                    {
+                        break;
+                    }
+
+                    this.in.getInt();
+                    final ByteBuffer request = ByteBuffer.allocate(length);
+                    request.put(this.in.slice(this.in.position(), length)).flip();
+                    this.in.position(this.in.position() + length);
+                    this.requests.add(request);
+                    this.unanswered++;
+                }
+
+                if (!this.working && !this.requests.isEmpty())
+                {
+                    this.working = true;
+                    workers.execute(this::_work);
+                }
+                this.key.interestOps((_hasRoom() ? SelectionKey.OP_READ : 0)
+                        | (this.out.position() > 0 ? SelectionKey.OP_WRITE : 0));
+            }
+            this.in.compact();
+        }
+
+        private boolean _hasRoom()
+        {
+            return this.out.position() + (this.unanswered + 1) * MAXIMUM_RESPONSE_BYTES <= this.out.capacity();
+        }
+
+        /**
+         * Answer the queued requests in order, on a worker, until there are none left.
+         */
+        private void _work()
+        {
+            try
+            {
+                while (this.key.isValid())
+                {
+                    final ByteBuffer request;
+                    synchronized (this)
+                    {
+                        request = this.requests.poll();
+                        if (request == null)
+                        {
+                            break;
+                        }
+                    }
+
+                    this.response.clear();
+                    _handleRequest(request, this.response);
+                    this.response.flip();
+                    synchronized (this)
+                    {
+                        this.out.put(this.response);
+                        this.unanswered--;
+                        _queueFlush();
+                    }
+                }
+            }
+            catch (RuntimeException e)
+            {
+                fail(e);
+            }
+            finally
+            {
+                synchronized (this)
+                {
+                    this.working = false;
+                    // Requests queued after the last poll, if it came up empty.
+                    if (!this.requests.isEmpty() && this.key.isValid())
+                    {
+                        this.working = true;
+                        workers.execute(this::_work);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Ask the selector thread to write the output. Called holding this.
+         */
+        private void _queueFlush()
+        {
+            if (!this.flushQueued)
+            {
+                this.flushQueued = true;
+                this.loop.answered.add(this);
+                this.loop.selector.wakeup();
+            }
+        }
+
+        /**
+         * Send an error frame, with request id 0, as far as the socket will
+         * take it, and close the connection.
+         */
+        private void fail(final RuntimeException e)
+        {
+            ERRORS.increment();
+            final byte status = e instanceof IllegalArgumentException ? BAD_REQUEST : ERROR;
+            if (status == ERROR)
+            {
+                System.out.println("[SocketSolverServer] Closing a connection after an error: " + e);
+            }
+
+            final ByteBuffer frame = ByteBuffer.allocate(MAXIMUM_RESPONSE_BYTES);
+            frame.putInt(0);
+            frame.put(OK);
+            frame.putInt(0);
+            _error(frame, 0, status, status == ERROR ? "Internal error" : e.getMessage());
+            frame.putInt(0, frame.position() - Integer.BYTES);
+            frame.flip();
+            synchronized (this)
+            {
+                try
+                {
+                    this.out.flip();
+                    ((SocketChannel) this.key.channel()).write(new ByteBuffer[] { this.out, frame });
+                }
+                catch (IOException ignored)
+                {
+                    // Closing anyway.
+                }
+                this.out.clear();
+                this.requests.clear();
+            }
+            _close(this.key);
+        }
+    }
+
+    private void _handleRequest(final ByteBuffer request, final ByteBuffer response)
+    {
+        final long start = Metrics.startTimer();
+        final byte type = request.get();
+        final int requestId = request.getInt();
+        final int frameStart = response.position();
+        response.putInt(0);
+        response.put(OK);
+        response.putInt(requestId);
+        try
+        {
+            if (type == START)
+            {
+                response.putLong(this.service.startGame(request.get()));
+            }
+            else if (type == GUESS)
+            {
+                final long gameId = request.getLong();
+                final int wordLength = request.get();
+                if (!WordleConstants.isSupportedWordLength(wordLength))
+                {
+                    throw new IllegalArgumentException("Unsupported word length: " + wordLength);
+                }
+                final String word = WordGuess.unpack(request.getLong(), wordLength);
+                final int pattern = request.getInt();
+                if (pattern != INVALID_PATTERN && (pattern < 0 || pattern >= FeedbackPattern.patternCount(wordLength)))
+                {
+                    throw new IllegalArgumentException("Bad pattern for a " + wordLength + "-letter word: " + pattern);
+                }
+
+                final String suggestion = this.service.applyGuess(gameId,
+                        pattern == INVALID_PATTERN ? WordGuess.invalid(word) : WordGuess.fromPattern(word, pattern));
+                response.putLong(suggestion != null ? WordGuess.pack(suggestion) : NO_SUGGESTION);
+            }
+            else if (type == END)
+            {
+                final long gameId = request.getLong();
+                if (!this.service.endGame(gameId))
+                {
+                    throw new NoSuchElementException("No such game: " + gameId);
+                }
+            }
+            else
+            {
+                throw new IllegalArgumentException("Unknown request type: " + type);
+            }
+        }
+        catch (NoSuchElementException e)
+        {
+            _error(response, frameStart, NOT_FOUND, e.getMessage());
+        }
+        catch (IllegalArgumentException e)
+        {
+            _error(response, frameStart, BAD_REQUEST, e.getMessage());
+        }
+        catch (BufferUnderflowException e)
+        {
+            _error(response, frameStart, BAD_REQUEST, "Request too short for its type: " + type);
+        }
+        catch (RuntimeException e)
+        {
+            System.out.println("[SocketSolverServer] Error handling request " + requestId + ": " + e);
+            _error(response, frameStart, ERROR, "Internal error");
+        }
+        response.putInt(frameStart, response.position() - frameStart - Integer.BYTES);
+        REQUEST_TIME.recordSince(start);
+    }
+
+    /**
+     * Replace a response's status and payload with an error message, which may be null.
+     */
+    private static void _error(final ByteBuffer response, final int frameStart, final byte status, final String message)
+    {
+        ERRORS.increment();
+        response.position(frameStart + Integer.BYTES);
+        response.put(status);
+        response.position(response.position() + Integer.BYTES);
+
+        final byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        response.put(bytes, 0, Math.min(bytes.length, MAXIMUM_MESSAGE_BYTES));
+    }
+
+    private static void _close(final SelectionKey key)
+    {
+        key.cancel();
+        try
+        {
+            key.channel().close();
+        }
+        catch (IOException e)
+        {
+            // Already gone.
+        }
+    }
+}
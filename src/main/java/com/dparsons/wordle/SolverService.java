@@ -0,0 +1,234 @@
+package com.dparsons.wordle;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The solver as a long-lived service: many games at once, each a
+ * {@link SolverSession} on the snapshot that was current when it started,
+ * looked up by id. Transports ({@link HttpSolverServer}, and {@link SocketSolverServer}
+ * if -Dwordle.service.socket.path is set) turn requests into calls on this
+ * class, and are all the service knows about them.
+ *
+ * A game ends when its answer is guessed, when the client ends it, or after
+ * -Dwordle.service.idle.minutes (30) without a guess. Sessions aren't thread
+ * safe, so guesses for one game are applied one at a time; different games
+ * run in parallel. Sessions don't speculate here, as the spare cores are
+ * better spent on other games.
+ *
+ * Words Wordle rejects are stored straight away, but the snapshots are
+ * refreshed at most once per -Dwordle.service.refresh.delay.ms (1000), however
+ * many come in, and only one refresh runs at a time.
+ */
+public class SolverService implements Closeable
+{
+    private static final Counter GAMES_STARTED = Metrics.counter("service.games.started");
+    private static final Counter GAMES_EXPIRED = Metrics.counter("service.games.expired");
+
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(Long.getLong("wordle.service.idle.minutes", 30));
+    private static final long REFRESH_DELAY_MS = Long.getLong("wordle.service.refresh.delay.ms", 1000);
+
+    private final WordleDb db;
+    private final DictionarySnapshots snapshots;
+    private final Map<String, OpeningBook> openingBooks;
+
+    private final Map<Long, Game> games = new ConcurrentHashMap<>();
+    private final AtomicLong nextGameId = new AtomicLong(1);
+
+    // Set while a refresh is scheduled or running; invalidWordsStored is set by any word stored since it read them.
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final AtomicBoolean invalidWordsStored = new AtomicBoolean();
+
+    private final ScheduledExecutorService expiryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "service-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static void main(String[] args)
+    {
+        final String filename = args[0];
+        final WordleDb db = new WordleDb("localhost", 5432, "wordle_solver", "password");
+        final SolverService service = new SolverService(db, new DictionarySnapshots(filename, db), db.getOpeningBooks());
+        final HttpSolverServer server = new HttpSolverServer(service,
+                new InetSocketAddress(Integer.getInteger("wordle.service.http.port", 8080)));
+        final String socketPath = System.getProperty("wordle.service.socket.path");
+        final SocketSolverServer socketServer = socketPath != null ? new SocketSolverServer(service, Path.of(socketPath)) : null;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            if (socketServer != null)
+            {
+                socketServer.close();
+            }
+            service.close();
+        }, "service-shutdown"));
+        System.out.println("Solver service listening on " + server.getAddress()
+                + (socketServer != null ? " and " + socketServer.getPath() : ""));
+    }
+
+    public SolverService(final WordleDb db, final DictionarySnapshots snapshots, final Map<String, OpeningBook> openingBooks)
+    {
+        this.db = db;
+        this.snapshots = snapshots;
+        this.openingBooks = openingBooks;
+
+        final long sweepNanos = Math.max(IDLE_NANOS / 4, TimeUnit.SECONDS.toNanos(1));
+        this.expiryExecutor.scheduleWithFixedDelay(this::_expireIdleGames, sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Start a game of the given word length on the latest snapshot, and return its id.
+     */
+    public long startGame(final int wordLength)
+    {
+        final DictionarySnapshot snapshot = this.snapshots.current(wordLength);
+        final long gameId = this.nextGameId.getAndIncrement();
+        this.games.put(gameId, new Game(new SolverSession(snapshot, this.openingBooks)));
+        GAMES_STARTED.increment();
+        return gameId;
+    }
+
+    /**
+     * Record a scored guess, and return the suggestion for the next guess, or
+     * null if there is none. A correct guess ends the game and returns null.
+     */
+    public String applyGuess(final long gameId, final WordGuess guess)
+    {
+        final Game game = _game(gameId);
+        synchronized (game)
+        {
+            if (game.ended)
+            {
+                // Ended while we waited for it.
+                throw new NoSuchElementException("No such game: " + gameId);
+            }
+            if (game.wordLength != guess.length())
+            {
+                throw new IllegalArgumentException("Expected a " + game.wordLength + "-letter guess: " + guess);
+            }
+            game.lastUsedNanos = System.nanoTime();
+            if (guess.isCorrect())
+            {
+                endGame(gameId);
+                return null;
+            }
+
+            _handleInvalidGuessWord(guess);
+            return game.session.applyGuess(guess);
+        }
+    }
+
+    /**
+     * End a game, returning false if there was no such game. Waits for a
+     * guess being applied to it to finish first.
+     */
+    public boolean endGame(final long gameId)
+    {
+        final Game game = this.games.remove(gameId);
+        if (game == null)
+        {
+            return false;
+        }
+        synchronized (game)
+        {
+            game.ended = true;
+            game.session.close();
+        }
+        return true;
+    }
+
+    public int getActiveGames()
+    {
+        return this.games.size();
+    }
+
+    @Override
+    public void close()
+    {
+        this.expiryExecutor.shutdown();
+        this.games.keySet().forEach(this::endGame);
+    }
+
+    private static final class Game
+    {
+        private final SolverSession session;
+        private final int wordLength;
+        private volatile long lastUsedNanos = System.nanoTime();
+        // Guarded by the game.
+        private boolean ended = false;
+
+        private Game(final SolverSession session)
+        {
+            this.session = session;
+            this.wordLength = session.getWordLength();
+        }
+    }
+
+    private Game _game(final long gameId)
+    {
+        final Game game = this.games.get(gameId);
+        if (game == null)
+        {
+            throw new NoSuchElementException("No such game: " + gameId);
+        }
+        return game;
+    }
+
+    /**
+     * As in the command line solver, remember words Wordle rejects so later games don't suggest them.
+     */
+    private void _handleInvalidGuessWord(final WordGuess guess)
+    {
+        if (guess.isInvalid())
+        {
+            this.db.storeInvalidWord(guess.toString());
+            _requestRefresh();
+        }
+    }
+
+    /**
+     * Refresh the snapshots after a short delay, unless a refresh is already
+     * on its way. A word stored while one runs gets another once it's done.
+     */
+    private void _requestRefresh()
+    {
+        this.invalidWordsStored.set(true);
+        if (this.refreshPending.compareAndSet(false, true))
+        {
+            this.expiryExecutor.schedule(this::_refresh, REFRESH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void _refresh()
+    {
+        this.invalidWordsStored.set(false);
+        this.snapshots.refreshAsync().whenComplete((snapshot, e) -> {
+            this.refreshPending.set(false);
+            if (this.invalidWordsStored.get())
+            {
+                _requestRefresh();
+            }
+        });
+    }
+
+    private void _expireIdleGames()
+    {
+        final long now = System.nanoTime();
+        for (Map.Entry<Long, Game> entry : this.games.entrySet())
+        {
+            if (now - entry.getValue().lastUsedNanos > IDLE_NANOS && endGame(entry.getKey()))
+            {
+                GAMES_EXPIRED.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.dparsons.wordle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A single game. Pins the dictionary snapshot that was current when the
+ * game started, and narrows its own view of it as guesses come in, so
+ * the dictionary can be refreshed at any time without affecting the game.
+ * Has no user interface of its own; the command line solver drives it.
+ *
+ * Given an executor, the session also uses the time the user spends
+ * typing: after each suggestion it speculates on the next turn for the
+ * suggestion's most likely feedback (see {@link SpeculativeTurns}).
+ *
+ * Every turn is appended to the game log, if one is configured (see {@link GameLog}).
+ */
+public class SolverSession
+{
+    // Feedback patterns to speculate on after each suggestion, or zero to turn speculation off.
+    private static final int SPECULATIVE_PATTERNS = Integer.getInteger("wordle.speculation.patterns", 4);
+
+    private Dictionary dictionary;
+    private GuessRecommender recommender;
+    private final Map<String, OpeningBook> openingBooks;
+    private final List<WordGuess> guesses = new ArrayList<>();
+
+    // Executor for speculative turns, or null if the session doesn't speculate.
+    private final ExecutorService speculationExecutor;
+    private SpeculativeTurns speculation;
+
+    private final GameLog log;
+    private final long gameId;
+    private final long startedAtNanos = System.nanoTime();
+
+    public SolverSession(final DictionarySnapshot snapshot, final Map<String, OpeningBook> openingBooks)
+    {
+        this(snapshot, openingBooks, null);
+    }
+
+    public SolverSession(final DictionarySnapshot snapshot,
+                         final Map<String, OpeningBook> openingBooks,
+                         final ExecutorService speculationExecutor)
+    {
+        this(snapshot, openingBooks, speculationExecutor, GameLog.shared());
+    }
+
+    public SolverSession(final DictionarySnapshot snapshot,
+                         final Map<String, OpeningBook> openingBooks,
+                         final ExecutorService speculationExecutor,
+                         final GameLog log)
+    {
+        this.dictionary = new Dictionary(snapshot);
+        this.recommender = new GuessRecommender(this.dictionary);
+        this.openingBooks = openingBooks;
+        this.speculationExecutor = SPECULATIVE_PATTERNS > 0 ? speculationExecutor : null;
+        this.log = log;
+        this.gameId = log.startGame(snapshot.getChecksum(), snapshot.getWordLength());
+    }
+
+    /**
+     * Record a scored guess, and return the suggestion for the next guess,
+     * or null if there is none. Early turns are served from the opening book
+     * when possible, in which case the dictionary isn't narrowed at all. Once
+     * the game leaves the book, the dictionary is filtered using every guess
+     * so far and the suggestion is computed live, unless it was already
+     * computed speculatively.
+     */
+    public String applyGuess(final WordGuess guess)
+    {
+        final long start = System.nanoTime();
+        guesses.add(guess);
+        final SpeculativeTurns.Turn speculated = this.speculation != null ? this.speculation.take(guess) : null;
+        this.speculation = null;
+
+        final String suggestion;
+        final String bookGuess = _lookupBook(this.guesses);
+        if (bookGuess != null)
+        {
+            suggestion = bookGuess;
+        }
+        else if (speculated != null)
+        {
+            this.dictionary = speculated.getDictionary();
+            this.recommender = new GuessRecommender(this.dictionary);
+            suggestion = speculated.getSuggestion();
+        }
+        else
+        {
+            dictionary.filter(new DictionaryFilter(this.guesses));
+            suggestion = this.recommender.recommend(this.guesses);
+        }
+
+        _speculate(suggestion);
+        this.log.recordTurn(this.gameId, _millisSinceStart(start), this.guesses.size(), guess, suggestion,
+                System.nanoTime() - start);
+        return suggestion;
+    }
+
+    /**
+     * Cancel any speculation still running. Call once the game is over.
+     */
+    public void close()
+    {
+        if (this.speculation != null)
+        {
+            this.speculation.cancel();
+            this.speculation = null;
+        }
+        this.log.endGame(this.gameId, _millisSinceStart(System.nanoTime()));
+    }
+
+    public List<WordGuess> getGuesses()
+    {
+        return Collections.unmodifiableList(guesses);
+    }
+
+    public int getWordLength()
+    {
+        return dictionary.getSnapshot().getWordLength();
+    }
+
+    public long getSnapshotVersion()
+    {
+        return dictionary.getSnapshot().getVersion();
+    }
+
+    private long _millisSinceStart(final long nanos)
+    {
+        return (nanos - this.startedAtNanos) / 1_000_000;
+    }
+
+    private String _lookupBook(final List<WordGuess> guesses)
+    {
+        final OpeningBook book = this.openingBooks.get(guesses.get(0).toString());
+        return book != null ? book.lookup(guesses) : null;
+    }
+
+    /**
+     * Start on the turns that follow the suggestion, skipping any feedback
+     * the opening book will answer anyway.
+     */
+    private void _speculate(final String suggestion)
+    {
+        if (this.speculationExecutor == null || suggestion == null)
+        {
+            return;
+        }
+
+        // The skip test runs on the executor, after this turn has returned.
+        final List<WordGuess> guessesSoFar = new ArrayList<>(this.guesses);
+        this.speculation = SpeculativeTurns.start(this.speculationExecutor, this.dictionary, guessesSoFar,
+                suggestion, SPECULATIVE_PATTERNS, pattern ->
+                {
+                    final List<WordGuess> nextGuesses = new ArrayList<>(guessesSoFar);
+                    nextGuesses.add(WordGuess.fromPattern(suggestion, pattern));
+                    return _lookupBook(nextGuesses) != null;
+                });
+    }
+}
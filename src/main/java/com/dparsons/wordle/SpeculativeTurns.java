@@ -0,0 +1,189 @@
+package com.dparsons.wordle;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntPredicate;
+
+/**
+ * Next turns worked out while the user is still typing. Once a suggestion
+ * has been shown, the feedback patterns it is most likely to receive are
+ * each filtered and recommended on a background executor, each on its own
+ * copy of the dictionary. If the real feedback is one of them, the session
+ * takes that turn instead of computing it, and the rest are cancelled.
+ *
+ * Choosing the patterns means scoring the guess against every survivor, and
+ * each turn needs its own copy of the dictionary, so that's done on the
+ * executor too, and the suggestion goes back to the user without waiting
+ * for it. It reads the session's dictionary, so taking or cancelling the
+ * turns waits for it to finish, after which the session can narrow its
+ * dictionary again.
+ */
+public class SpeculativeTurns
+{
+    private static final Counter HITS = Metrics.counter("speculation.hits");
+    private static final Counter MISSES = Metrics.counter("speculation.misses");
+    private static final Counter STARTED = Metrics.counter("speculation.turns.started");
+
+    /**
+     * A turn computed ahead of time: the dictionary narrowed by the
+     * speculated feedback, and the suggestion that follows from it.
+     */
+    public static final class Turn
+    {
+        private final Dictionary dictionary;
+        private final String suggestion;
+
+        private Turn(final Dictionary dictionary, final String suggestion)
+        {
+            this.dictionary = dictionary;
+            this.suggestion = suggestion;
+        }
+
+        public Dictionary getDictionary()
+        {
+            return dictionary;
+        }
+
+        public String getSuggestion()
+        {
+            return suggestion;
+        }
+    }
+
+    private final String guess;
+
+    // Filled in by the planning task. Guarded by this, which planning holds while it reads the session's dictionary.
+    private final Map<Integer, Future<Turn>> turns = new HashMap<>();
+    private boolean cancelled = false;
+
+    private SpeculativeTurns(final String guess)
+    {
+        this.guess = guess;
+    }
+
+    /**
+     * Start computing the turns that follow the guess for its most likely
+     * patterns, judged by how many surviving words give each one. Patterns
+     * the skip predicate accepts, such as those an opening book already
+     * answers, aren't computed. Returns straight away; all of the work runs
+     * on the executor.
+     */
+    public static SpeculativeTurns start(final ExecutorService executor,
+                                         final Dictionary dictionary,
+                                         final List<WordGuess> guesses,
+                                         final String guess,
+                                         final int maximumPatterns,
+                                         final IntPredicate skip)
+    {
+        final SpeculativeTurns speculation = new SpeculativeTurns(guess);
+        executor.execute(() -> speculation._plan(executor, dictionary, guesses, maximumPatterns, skip));
+        return speculation;
+    }
+
+    /**
+     * Choose the patterns to speculate on, and submit a turn for each, unless
+     * the session has already moved on.
+     */
+    private synchronized void _plan(final ExecutorService executor,
+                                    final Dictionary dictionary,
+                                    final List<WordGuess> guesses,
+                                    final int maximumPatterns,
+                                    final IntPredicate skip)
+    {
+        if (this.cancelled)
+        {
+            return;
+        }
+
+        final int[] counts = dictionary.countPatterns(this.guess);
+        final List<Integer> patterns = new ArrayList<>();
+        for (int pattern = 0; pattern < counts.length; pattern++)
+        {
+            if (counts[pattern] > 0 && pattern != FeedbackPattern.solved(this.guess.length()) && !skip.test(pattern))
+            {
+                patterns.add(pattern);
+            }
+        }
+        patterns.sort(Comparator.comparing((Integer pattern) -> counts[pattern]).reversed());
+
+        for (Integer pattern : patterns.subList(0, Math.min(maximumPatterns, patterns.size())))
+        {
+            final List<WordGuess> nextGuesses = new ArrayList<>(guesses);
+            nextGuesses.add(WordGuess.fromPattern(this.guess, pattern));
+
+            // Copy here, so the session can go on narrowing its own dictionary.
+            final Dictionary copy = dictionary.copy();
+            this.turns.put(pattern, executor.submit(() -> _computeTurn(copy, nextGuesses)));
+        }
+        STARTED.add(this.turns.size());
+    }
+
+    /**
+     * Return the turn computed for this feedback, waiting for it if it's still
+     * running, or null if it wasn't speculated on. Either way, every other
+     * turn is cancelled, so this can only be called once.
+     */
+    public Turn take(final WordGuess feedback)
+    {
+        final Future<Turn> turn;
+        synchronized (this)
+        {
+            turn = !feedback.isInvalid() && this.guess.equals(feedback.toString())
+                    ? this.turns.remove(feedback.getPattern())
+                    : null;
+            cancel();
+        }
+
+        if (turn == null)
+        {
+            MISSES.increment();
+            return null;
+        }
+
+        try
+        {
+            final Turn computed = turn.get();
+            HITS.increment();
+            return computed;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for a speculative turn.", e);
+        }
+        catch (ExecutionException | CancellationException e)
+        {
+            // Computing it live will run into the same error, if there is one.
+            MISSES.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Cancel every turn that hasn't been taken. Turns already running are
+     * interrupted between filtering and recommending. Waits for planning to
+     * finish if it's running, and stops it starting if it isn't.
+     */
+    public synchronized void cancel()
+    {
+        this.cancelled = true;
+        for (Future<Turn> turn : this.turns.values())
+        {
+            turn.cancel(true);
+        }
+        this.turns.clear();
+    }
+
+    private static Turn _computeTurn(final Dictionary dictionary, final List<WordGuess> guesses)
+    {
+        dictionary.filter(new DictionaryFilter(guesses));
+        if (Thread.interrupted())
+        {
+            throw new CancellationException();
+        }
+        return new Turn(dictionary, new GuessRecommender(dictionary).recommend(guesses));
+    }
+}
@@ -0,0 +1,179 @@
+package com.dparsons.wordle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A random sample of a dictionary's surviving words, for scoring guesses
+ * when there are too many survivors to score against all of them. Words are
+ * drawn with replacement, in proportion to their Wikipedia count (at least 1,
+ * so words never seen on Wikipedia can still come up), which makes the sample
+ * look like the answers we expect rather than like the dictionary.
+ *
+ * Drawing takes one pass over the survivors to sum their weights. After that,
+ * each draw is a binary search, so scoring costs depend on the sample size
+ * rather than the size of the dictionary.
+ */
+public class SurvivorSample
+{
+    // Two-sided 95% confidence.
+    private static final double Z = 1.96;
+
+    /**
+     * What a sample says about one guess: roughly how many words it would
+     * leave, weighted by frequency, give or take the margin.
+     */
+    public static final class Estimate
+    {
+        private final double expectedSurvivors;
+        private final double margin;
+
+        private Estimate(final double expectedSurvivors, final double margin)
+        {
+            this.expectedSurvivors = expectedSurvivors;
+            this.margin = margin;
+        }
+
+        public double getExpectedSurvivors()
+        {
+            return expectedSurvivors;
+        }
+
+        /**
+         * Return the half-width of the 95% confidence interval around the estimate.
+         */
+        public double getMargin()
+        {
+            return margin;
+        }
+
+        public double getLowerBound()
+        {
+            return expectedSurvivors - margin;
+        }
+
+        public double getUpperBound()
+        {
+            return expectedSurvivors + margin;
+        }
+    }
+
+    private final DictionarySnapshot snapshot;
+    private final Random random;
+
+    // Ids of the surviving Wikipedia words (null meaning all of them), then of plaintext words not on Wikipedia.
+    private final int[] wikipediaIds;
+    private final int wikipediaSize;
+    private final int[] plaintextIds;
+
+    // Running totals of the survivors' weights, Wikipedia words first.
+    private final long[] cumulativeWeights;
+    private final int survivorCount;
+
+    private final List<String> words = new ArrayList<>();
+    private LetterColumns columns;
+
+    SurvivorSample(final DictionarySnapshot snapshot,
+                   final int[] wikipediaIds,
+                   final int wikipediaSize,
+                   final int[] plaintextIds,
+                   final Random random)
+    {
+        this.snapshot = snapshot;
+        this.random = random;
+        this.wikipediaIds = wikipediaIds;
+        this.wikipediaSize = wikipediaSize;
+        this.plaintextIds = plaintextIds;
+        this.survivorCount = wikipediaSize + plaintextIds.length;
+
+        this.cumulativeWeights = new long[this.survivorCount];
+        long total = 0;
+        for (int i = 0; i < this.survivorCount; i++)
+        {
+            total += Math.max(1, i < wikipediaSize
+                    ? snapshot.getWikipediaCount(Dictionary.idAt(wikipediaIds, i))
+                    : snapshot.getPlaintextCount(plaintextIds[i - wikipediaSize]));
+            this.cumulativeWeights[i] = total;
+        }
+        this.columns = LetterColumns.of(this.words);
+    }
+
+    /**
+     * Draw more words into the sample.
+     */
+    public void grow(final int additional)
+    {
+        if (this.survivorCount == 0)
+        {
+            return;
+        }
+
+        final long total = this.cumulativeWeights[this.survivorCount - 1];
+        for (int i = 0; i < additional; i++)
+        {
+            final long target = (long) (this.random.nextDouble() * total);
+            int index = Arrays.binarySearch(this.cumulativeWeights, target + 1);
+            if (index < 0)
+            {
+                index = -index - 1;
+            }
+            this.words.add(_word(index));
+        }
+        this.columns = LetterColumns.of(this.words);
+    }
+
+    public int size()
+    {
+        return this.words.size();
+    }
+
+    public int getSurvivorCount()
+    {
+        return this.survivorCount;
+    }
+
+    /**
+     * Estimate how many survivors the guess leaves, on average, had the answer
+     * been drawn by frequency. This is the chance that two independent answers
+     * give the guess the same pattern, times the number of survivors, which the
+     * sample estimates without bias by pairing each draw with the others.
+     */
+    public Estimate estimate(final byte[] guess, final FeedbackScorer scorer)
+    {
+        final int n = this.words.size();
+        if (n < 2)
+        {
+            return new Estimate(this.survivorCount, this.survivorCount);
+        }
+
+        final int[] patterns = new int[n];
+        scorer.score(guess, this.columns, patterns);
+        final int[] counts = new int[FeedbackPattern.patternCount(guess.length)];
+        for (final int pattern : patterns)
+        {
+            counts[pattern]++;
+        }
+
+        // Each draw contributes the share of the other draws that matched its pattern.
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (final int pattern : patterns)
+        {
+            final double share = (counts[pattern] - 1) / (double) (n - 1);
+            sum += share;
+            sumOfSquares += share * share;
+        }
+        final double mean = sum / n;
+        final double variance = Math.max(0.0, sumOfSquares / n - mean * mean);
+        return new Estimate(mean * this.survivorCount, Z * Math.sqrt(variance / n) * this.survivorCount);
+    }
+
+    private String _word(final int index)
+    {
+        return index < this.wikipediaSize
+                ? this.snapshot.getWikipediaWord(Dictionary.idAt(this.wikipediaIds, index))
+                : this.snapshot.getPlaintextWord(this.plaintextIds[index - this.wikipediaSize]);
+    }
+}
@@ -0,0 +1,288 @@
+package com.dparsons.wordle;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Scores a guess against as many candidates per instruction as the
+ * platform's preferred vector width holds (16 to 64 bytes). Each lane
+ * is one candidate, and each letter column is loaded as one vector.
+ *
+ * Greens are a lane-wise comparison of a column with the guess letter.
+ * A non-green guess letter is yellow in a lane when that candidate has
+ * more unmatched occurrences of the letter than earlier positions of the
+ * guess already claimed, which is how the reference scorer handles
+ * repeated letters. The base-3 pattern is accumulated in byte lanes;
+ * five letters never exceed 242, so it fits in an unsigned byte. Longer
+ * words don't fit, and are left to the scalar scorer.
+ *
+ * Written so that JDK 17's C2 compiles it without allocating. A vector
+ * that C2 can't keep in a register, because it's passed between methods
+ * that weren't inlined or carried around a loop, is boxed on the heap:
+ * - Columns are loaded from byte arrays. Columns mapped from a corpus file
+ *   are copied a chunk at a time into a scratch array for the thread first.
+ * - Each step of a batch (greens, the count of a letter, yellows, the
+ *   pattern) loads its inputs from the scratch array and stores its result
+ *   there, so no vector outlives the statement that made it.
+ * - Comparisons are lane-wise arithmetic on 0 and 1, rather than masks.
+ *   The only mask is the comparison with the target pattern, and only its
+ *   true count is taken, to drop a batch with no matches. VectorMask.toLong
+ *   allocates on JDK 17, so the survivor bits of a batch with matches are
+ *   gathered from the stored patterns instead.
+ * AllocationBudgetsTest holds it to the same budget as the scalar scorer.
+ *
+ * Requires --add-modules jdk.incubator.vector, and is selected with
+ * -Dwordle.scorer=vector. Candidates past the last full vector are scored
+ * with the scalar scorer.
+ */
+public class VectorFeedbackScorer implements FeedbackScorer
+{
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final long LANE_BITS = LANES == Long.SIZE ? -1L : (1L << LANES) - 1;
+
+    // Longest word whose patterns fit in a byte lane.
+    private static final int MAXIMUM_WORD_LENGTH = 5;
+
+    // Candidates copied at a time from mapped columns. A multiple of 64, so a chunk covers whole longs of survivors.
+    private static final int CHUNK = 4096;
+
+    // Mapped columns are copied to the start of a thread's scratch array. After them, one batch's
+    // greens and yellows per position, the running count of a letter, and the patterns.
+    private static final int GREENS = MAXIMUM_WORD_LENGTH * CHUNK;
+    private static final int YELLOWS = GREENS + MAXIMUM_WORD_LENGTH * LANES;
+    private static final int COUNT = YELLOWS + MAXIMUM_WORD_LENGTH * LANES;
+    private static final int PATTERNS = COUNT + LANES;
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[PATTERNS + LANES]);
+
+    private static final ScalarFeedbackScorer SCALAR = new ScalarFeedbackScorer();
+
+    @Override
+    public void score(final byte[] guess, final LetterColumns candidates, final int[] patterns)
+    {
+        if (guess.length > MAXIMUM_WORD_LENGTH)
+        {
+            SCALAR.score(guess, candidates, patterns);
+            return;
+        }
+
+        final byte[] scratch = SCRATCH.get();
+        final byte[] array = candidates.array();
+        if (array != null)
+        {
+            _score(guess, candidates, array, candidates.arrayOffset(0), candidates.stride(), 0, candidates.size(), patterns, scratch);
+            return;
+        }
+        for (int from = 0; from < candidates.size(); from += CHUNK)
+        {
+            final int to = Math.min(candidates.size(), from + CHUNK);
+            candidates.copyColumns(from, to - from, scratch, CHUNK);
+            _score(guess, candidates, scratch, -from, CHUNK, from, to, patterns, scratch);
+        }
+    }
+
+    @Override
+    public int retainMatching(final byte[] guess,
+                              final int pattern,
+                              final LetterColumns candidates,
+                              final int from,
+                              final int to,
+                              final long[] survivors)
+    {
+        if (guess.length > MAXIMUM_WORD_LENGTH)
+        {
+            return SCALAR.retainMatching(guess, pattern, candidates, from, to, survivors);
+        }
+
+        final byte[] scratch = SCRATCH.get();
+        final byte[] array = candidates.array();
+        if (array != null)
+        {
+            return _retainMatching(guess, pattern, candidates, array, candidates.arrayOffset(0), candidates.stride(), from, to, survivors, scratch);
+        }
+
+        int evaluated = 0;
+        for (int start = from; start < to; start += CHUNK)
+        {
+            final int end = Math.min(to, start + CHUNK);
+            candidates.copyColumns(start, end - start, scratch, CHUNK);
+            evaluated += _retainMatching(guess, pattern, candidates, scratch, -start, CHUNK, start, end, survivors, scratch);
+        }
+        return evaluated;
+    }
+
+    /**
+     * Score candidates from (inclusive) to (exclusive), whose letter at position p
+     * is at letters[base + p * stride + candidate].
+     */
+    private static void _score(final byte[] guess,
+                               final LetterColumns candidates,
+                               final byte[] letters,
+                               final int base,
+                               final int stride,
+                               final int from,
+                               final int to,
+                               final int[] patterns,
+                               final byte[] scratch)
+    {
+        final int upperBound = from + SPECIES.loopBound(to - from);
+
+        int offset = from;
+        for (; offset < upperBound; offset += LANES)
+        {
+            _patterns(guess, letters, base, stride, offset, scratch);
+            for (int lane = 0; lane < LANES; lane++)
+            {
+                patterns[offset + lane] = scratch[PATTERNS + lane] & 0xFF;
+            }
+        }
+
+        for (; offset < to; offset++)
+        {
+            patterns[offset] = ScalarFeedbackScorer.score(guess, candidates, offset);
+        }
+    }
+
+    private static int _retainMatching(final byte[] guess,
+                                       final int pattern,
+                                       final LetterColumns candidates,
+                                       final byte[] letters,
+                                       final int base,
+                                       final int stride,
+                                       final int from,
+                                       final int to,
+                                       final long[] survivors,
+                                       final byte[] scratch)
+    {
+        // From is a multiple of 64, so every batch lies within one long of survivors.
+        final int upperBound = from + SPECIES.loopBound(to - from);
+        final byte target = (byte) pattern;
+        int evaluated = 0;
+
+        int offset = from;
+        for (; offset < upperBound; offset += LANES)
+        {
+            final int word = offset >>> 6;
+            final int shift = offset & 63;
+            if (((survivors[word] >>> shift) & LANE_BITS) == 0)
+            {
+                // Every candidate in this batch is already eliminated.
+                continue;
+            }
+
+            _patterns(guess, letters, base, stride, offset, scratch);
+            long matches = 0;
+            if (ByteVector.fromArray(SPECIES, scratch, PATTERNS).compare(VectorOperators.EQ, target).trueCount() > 0)
+            {
+                for (int lane = 0; lane < LANES; lane++)
+                {
+                    matches |= (scratch[PATTERNS + lane] == target ? 1L : 0L) << lane;
+                }
+            }
+            survivors[word] &= ~((~matches & LANE_BITS) << shift);
+            evaluated += LANES;
+        }
+
+        for (; offset < to; offset++)
+        {
+            if ((survivors[offset >>> 6] & (1L << offset)) != 0)
+            {
+                evaluated++;
+                if (ScalarFeedbackScorer.score(guess, candidates, offset) != pattern)
+                {
+                    survivors[offset >>> 6] &= ~(1L << offset);
+                }
+            }
+        }
+        return evaluated;
+    }
+
+    /**
+     * Compute the patterns of one vector of candidates, starting at the offset,
+     * into scratch[PATTERNS]. Every per-lane flag is a byte of 0 or 1, so "and"
+     * is a lane-wise and, and counts are sums.
+     */
+    private static void _patterns(final byte[] guess, final byte[] letters, final int base, final int stride, final int offset, final byte[] scratch)
+    {
+        for (int position = 0; position < guess.length; position++)
+        {
+            final ByteVector column = ByteVector.fromArray(SPECIES, letters, base + position * stride + offset);
+            _equal(column, guess[position]).intoArray(scratch, GREENS + position * LANES);
+        }
+
+        // A letter is yellow while the candidate has more non-green occurrences
+        // of it than earlier positions of the guess already claimed as yellow.
+        for (int position = 0; position < guess.length; position++)
+        {
+            _count(guess, position, letters, base, stride, offset, scratch);
+            ByteVector.fromArray(SPECIES, scratch, COUNT)
+                    .max((byte) 0)
+                    .min((byte) 1)
+                    .and(_open(scratch, position))
+                    .intoArray(scratch, YELLOWS + position * LANES);
+        }
+
+        // 2 for green, 1 for yellow, 0 for gray. A lane is never both.
+        ByteVector.zero(SPECIES).intoArray(scratch, PATTERNS);
+        for (int position = 0; position < guess.length; position++)
+        {
+            final ByteVector green = ByteVector.fromArray(SPECIES, scratch, GREENS + position * LANES);
+            ByteVector.fromArray(SPECIES, scratch, PATTERNS)
+                    .mul((byte) 3)
+                    .add(green)
+                    .add(green)
+                    .add(ByteVector.fromArray(SPECIES, scratch, YELLOWS + position * LANES))
+                    .intoArray(scratch, PATTERNS);
+        }
+    }
+
+    /**
+     * Count each candidate's non-green occurrences of the letter at the position,
+     * less the yellows claimed by earlier positions of the same letter, into scratch[COUNT].
+     */
+    private static void _count(final byte[] guess,
+                               final int position,
+                               final byte[] letters,
+                               final int base,
+                               final int stride,
+                               final int offset,
+                               final byte[] scratch)
+    {
+        final byte letter = guess[position];
+        ByteVector.zero(SPECIES).intoArray(scratch, COUNT);
+        for (int other = 0; other < guess.length; other++)
+        {
+            final ByteVector column = ByteVector.fromArray(SPECIES, letters, base + other * stride + offset);
+            ByteVector.fromArray(SPECIES, scratch, COUNT)
+                    .add(_equal(column, letter).and(_open(scratch, other)))
+                    .intoArray(scratch, COUNT);
+        }
+        for (int earlier = 0; earlier < position; earlier++)
+        {
+            if (guess[earlier] == letter)
+            {
+                ByteVector.fromArray(SPECIES, scratch, COUNT)
+                        .sub(ByteVector.fromArray(SPECIES, scratch, YELLOWS + earlier * LANES))
+                        .intoArray(scratch, COUNT);
+            }
+        }
+    }
+
+    /**
+     * 1 where the column holds the letter, 0 elsewhere. Both are never
+     * negative, so their xor is zero only when they're equal.
+     */
+    private static ByteVector _equal(final ByteVector column, final byte letter)
+    {
+        return column.lanewise(VectorOperators.XOR, letter).min((byte) 1).lanewise(VectorOperators.XOR, (byte) 1);
+    }
+
+    /**
+     * 1 where the position isn't green, 0 where it is.
+     */
+    private static ByteVector _open(final byte[] scratch, final int position)
+    {
+        return ByteVector.fromArray(SPECIES, scratch, GREENS + position * LANES).lanewise(VectorOperators.XOR, (byte) 1);
+    }
+}
@@ -0,0 +1,627 @@
+package com.dparsons.wordle;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Read-only list of words and their counts, stored in a memory-mapped
+ * file rather than on the Java heap. Words are addressed by id, and the
+ * accessors read straight from the mapping, so the heap cost of a corpus
+ * doesn't grow with its size and the garbage collector never sees it.
+ * Solver processes on the same host that map the same file share a
+ * single copy of it in the page cache.
+ *
+ * Words are found by id with a minimal perfect hash, built when the file
+ * is written: each word is packed into a long, hashed to a bucket, and
+ * each bucket stores the seed that sends all of its words to free slots.
+ * If a bucket runs out of seeds to try, the hash is built again with
+ * smaller buckets, down to one word per bucket on average. A lookup is two hashes, three array reads and a comparison of letters
+ * to reject words that aren't in the corpus.
+ *
+ * File layout, with ints big-endian:
+ *   header   magic, format, word length, size, stride, buckets (padded to 32 bytes)
+ *   letters  one column of stride bytes per letter position, each letter stored as 0-25
+ *   flags    stride bytes of FLAG_ bits
+ *   counts   stride ints
+ *   seeds    one int per bucket
+ *   slots    size ints, holding the id of the word that hashes to each slot
+ */
+public final class WordCorpus
+{
+    private static final int MAGIC = 0x57435250;
+    private static final int FORMAT = 2;
+    private static final int HEADER_BYTES = 32;
+
+    // Average words per bucket of the perfect hash. Fewer builds faster, more takes less space.
+    private static final int WORDS_PER_BUCKET = 4;
+    // Seeds tried for a bucket before building again with smaller buckets.
+    private static final int MAX_SEED_ATTEMPTS = 1 << 24;
+
+    // Set on plaintext words that are also in the Wikipedia corpus.
+    public static final byte FLAG_IN_WIKIPEDIA = 1;
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final int wordLength;
+    private final int size;
+    private final int stride;
+    private final int buckets;
+    private final int flagsOffset;
+    private final int countsOffset;
+    private final int seedsOffset;
+    private final int slotsOffset;
+    private final LetterColumns columns;
+
+    private WordCorpus(final Path path, final ByteBuffer buffer)
+    {
+        this.path = path;
+        this.buffer = buffer;
+
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT)
+        {
+            throw new IllegalStateException("Not a word corpus: " + path);
+        }
+        this.wordLength = buffer.getInt(8);
+        this.size = buffer.getInt(12);
+        this.stride = buffer.getInt(16);
+        this.buckets = buffer.getInt(20);
+        this.flagsOffset = HEADER_BYTES + wordLength * stride;
+        this.countsOffset = _align(flagsOffset + stride);
+        this.seedsOffset = countsOffset + Integer.BYTES * stride;
+        this.slotsOffset = seedsOffset + Integer.BYTES * buckets;
+        this.columns = LetterColumns.view(buffer, HEADER_BYTES, stride, size, wordLength);
+    }
+
+    /**
+     * Map an existing corpus file, read-only.
+     */
+    public static WordCorpus open(final Path path)
+    {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            // The mapping stays valid after the channel is closed.
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new WordCorpus(path, buffer);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Error mapping word corpus " + path, e);
+        }
+    }
+
+    public Path getPath()
+    {
+        return path;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int wordLength()
+    {
+        return wordLength;
+    }
+
+    /**
+     * Return the word with the given id. This is the only accessor that
+     * allocates, so hot loops should prefer the letters or the columns.
+     */
+    public String word(final int id)
+    {
+        final char[] letters = new char[wordLength];
+        for (int position = 0; position < wordLength; position++)
+        {
+            letters[position] = (char) ('a' + letter(position, id));
+        }
+        return new String(letters);
+    }
+
+    public byte letter(final int position, final int id)
+    {
+        return buffer.get(HEADER_BYTES + position * stride + id);
+    }
+
+    public int count(final int id)
+    {
+        return buffer.getInt(countsOffset + Integer.BYTES * id);
+    }
+
+    public byte flags(final int id)
+    {
+        return buffer.get(flagsOffset + id);
+    }
+
+    public boolean hasFlag(final int id, final byte flag)
+    {
+        return (flags(id) & flag) != 0;
+    }
+
+    /**
+     * Return the id of the word, or -1 if it isn't in the corpus. For the
+     * Wikipedia corpus, the id is also the word's rank by count.
+     */
+    public int indexOf(final CharSequence word)
+    {
+        final long key = _key(word, wordLength);
+        return key < 0 ? -1 : indexOfKey(key);
+    }
+
+    /**
+     * Return the word with the given id packed five bits per letter,
+     * first letter highest, so packed words sort alphabetically.
+     */
+    long key(final int id)
+    {
+        long key = 0;
+        for (int position = 0; position < wordLength; position++)
+        {
+            key = (key << 5) | letter(position, id);
+        }
+        return key;
+    }
+
+    /**
+     * Return the id of a packed word, or -1 if it isn't in the corpus.
+     */
+    int indexOfKey(final long key)
+    {
+        if (size == 0)
+        {
+            return -1;
+        }
+
+        final int seed = buffer.getInt(seedsOffset + Integer.BYTES * _bucket(key, buckets));
+        final int id = buffer.getInt(slotsOffset + Integer.BYTES * _slot(key, seed, size));
+        return key(id) == key ? id : -1;
+    }
+
+    /**
+     * Return the count of the word, or zero if it isn't in the corpus.
+     */
+    public int countOf(final CharSequence word)
+    {
+        final int id = indexOf(word);
+        return id < 0 ? 0 : count(id);
+    }
+
+    /**
+     * Feed the words, flags and counts into a checksum. The hash tables are
+     * left out, as they follow from the words.
+     */
+    void checksum(final CRC32C checksum)
+    {
+        checksum.update(buffer.duplicate().position(0).limit(seedsOffset));
+    }
+
+    /**
+     * Return the letters of every word, as a view of the mapping.
+     */
+    public LetterColumns columns()
+    {
+        return columns;
+    }
+
+    /**
+     * Pack a word into a long, five bits per letter. Returns -1 if the word
+     * isn't all lowercase letters of the given length.
+     */
+    private static long _key(final CharSequence word, final int wordLength)
+    {
+        if (word == null || word.length() != wordLength)
+        {
+            return -1;
+        }
+
+        long key = 0;
+        for (int i = 0; i < wordLength; i++)
+        {
+            final char letter = word.charAt(i);
+            if (letter < 'a' || letter > 'z')
+            {
+                return -1;
+            }
+            key = (key << 5) | (letter - 'a');
+        }
+        return key;
+    }
+
+    private static long _key(final byte[] letters)
+    {
+        long key = 0;
+        for (final byte letter : letters)
+        {
+            key = (key << 5) | letter;
+        }
+        return key;
+    }
+
+    private static int _bucket(final long key, final int buckets)
+    {
+        return (int) (((_mix(key) & 0xFFFFFFFFL) * buckets) >>> 32);
+    }
+
+    private static int _slot(final long key, final int seed, final int size)
+    {
+        return (int) (((_mix(key ^ (seed * 0x9E3779B97F4A7C15L)) >>> 32) * size) >>> 32);
+    }
+
+    /**
+     * Finalizer of MurmurHash3, which spreads every input bit over every output bit.
+     */
+    private static long _mix(long hash)
+    {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static int _align(final int bytes)
+    {
+        return (bytes + 3) & ~3;
+    }
+
+    /**
+     * Writes a corpus file. The number of words isn't known until the source
+     * runs out, so words are staged a row at a time and only laid out in
+     * columns, and hashed, by finish(). Duplicates keep their first count, and
+     * words that aren't all lowercase letters of the right length are skipped.
+     *
+     * The file is built next to its destination and then moved into place,
+     * so other processes only ever map complete files. Processes that mapped
+     * the file it replaces keep reading the old one until they remap.
+     */
+    public static final class Writer implements Closeable
+    {
+        private final Path target;
+        private final int wordLength;
+        private final Path staging;
+        private final DataOutputStream out;
+        private int rows = 0;
+        private boolean finished = false;
+
+        public Writer(final Path target, final int wordLength)
+        {
+            this.target = target;
+            this.wordLength = wordLength;
+
+            try
+            {
+                Files.createDirectories(target.toAbsolutePath().getParent());
+                this.staging = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".staging");
+                this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(staging)));
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("Error creating word corpus " + target, e);
+            }
+        }
+
+        public boolean add(final String word, final int count)
+        {
+            return add(word, count, (byte) 0);
+        }
+
+        /**
+         * Stage a word. Returns false if the word was skipped as invalid.
+         */
+        public boolean add(final String word, final int count, final byte flags)
+        {
+            final long key = _key(word, wordLength);
+            if (key < 0)
+            {
+                return false;
+            }
+
+            try
+            {
+                out.writeLong(key);
+                out.writeInt(count);
+                out.writeByte(flags);
+                rows++;
+                return true;
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("Error staging word corpus " + target, e);
+            }
+        }
+
+        /**
+         * Lay out the staged words, build the perfect hash, move the file into place and map it.
+         */
+        public WordCorpus finish()
+        {
+            final Path directory = target.toAbsolutePath().getParent();
+            Path built = null;
+            try
+            {
+                out.close();
+                built = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+
+                // Ids are assigned in the order words were added, skipping duplicates.
+                final long[] keys = _readDistinctKeys();
+                final int size = keys.length;
+                final int[] ids = new int[size];
+                final int[] seeds = _buildPerfectHash(keys, ids);
+                final int stride = rows;
+                final int buckets = seeds.length;
+                final int flagsOffset = HEADER_BYTES + wordLength * stride;
+                final int countsOffset = _align(flagsOffset + stride);
+                final int seedsOffset = countsOffset + Integer.BYTES * stride;
+                final int slotsOffset = seedsOffset + Integer.BYTES * buckets;
+                final long fileSize = slotsOffset + (long) Integer.BYTES * size;
+
+                try (final FileChannel channel = FileChannel.open(built, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                     final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(staging))))
+                {
+                    final MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+
+                    // Staged rows are in id order, with duplicates after the first occurrence.
+                    int id = 0;
+                    for (int row = 0; row < rows; row++)
+                    {
+                        final long key = in.readLong();
+                        final int count = in.readInt();
+                        final byte flags = in.readByte();
+                        if (id < size && keys[id] == key)
+                        {
+                            for (int position = 0; position < wordLength; position++)
+                            {
+                                final int shift = 5 * (wordLength - 1 - position);
+                                file.put(HEADER_BYTES + position * stride + id, (byte) ((key >>> shift) & 31));
+                            }
+                            file.put(flagsOffset + id, flags);
+                            file.putInt(countsOffset + Integer.BYTES * id, count);
+                            id++;
+                        }
+                    }
+
+                    for (int bucket = 0; bucket < buckets; bucket++)
+                    {
+                        file.putInt(seedsOffset + Integer.BYTES * bucket, seeds[bucket]);
+                    }
+                    for (int slot = 0; slot < size; slot++)
+                    {
+                        file.putInt(slotsOffset + Integer.BYTES * slot, ids[slot]);
+                    }
+
+                    file.putInt(0, MAGIC);
+                    file.putInt(4, FORMAT);
+                    file.putInt(8, wordLength);
+                    file.putInt(12, size);
+                    file.putInt(16, stride);
+                    file.putInt(20, buckets);
+                    file.force();
+                }
+
+                Files.move(built, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                finished = true;
+                return open(target);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("Error writing word corpus " + target, e);
+            }
+            finally
+            {
+                _deleteQuietly(staging);
+                if (built != null && !finished)
+                {
+                    _deleteQuietly(built);
+                }
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            if (!finished)
+            {
+                try
+                {
+                    out.close();
+                }
+                catch (IOException e)
+                {
+                    // Nothing to keep; the staging file is removed below.
+                }
+                _deleteQuietly(staging);
+            }
+        }
+
+        /**
+         * Read the staged keys, keeping the first occurrence of each. The keys
+         * only live on the heap while the file is being built.
+         */
+        private long[] _readDistinctKeys() throws IOException
+        {
+            final long[] keys = new long[rows];
+            // Open addressing over key + 1, as 0 marks an empty slot and "aaaaa" packs to 0.
+            final long[] seen = new long[Integer.highestOneBit(Math.max(2, rows * 2 - 1)) << 1];
+            final int mask = seen.length - 1;
+            int size = 0;
+
+            try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(staging))))
+            {
+                for (int row = 0; row < rows; row++)
+                {
+                    final long key = in.readLong();
+                    in.skipBytes(Integer.BYTES + 1);
+
+                    int slot = (int) _mix(key) & mask;
+                    while (seen[slot] != 0 && seen[slot] != key + 1)
+                    {
+                        slot = (slot + 1) & mask;
+                    }
+                    if (seen[slot] == 0)
+                    {
+                        seen[slot] = key + 1;
+                        keys[size++] = key;
+                    }
+                }
+            }
+            return size == rows ? keys : Arrays.copyOf(keys, size);
+        }
+
+        /**
+         * Build the perfect hash of the keys, filling in the id of the key at
+         * each slot and returning the seed of each bucket. Buckets are halved
+         * in size whenever one of them can't be placed.
+         */
+        private static int[] _buildPerfectHash(final long[] keys, final int[] ids)
+        {
+            final int size = keys.length;
+            for (int wordsPerBucket = WORDS_PER_BUCKET; ; wordsPerBucket /= 2)
+            {
+                final int[] seeds = new int[Math.max(1, (size + wordsPerBucket - 1) / wordsPerBucket)];
+                if (_placeBuckets(keys, seeds, ids))
+                {
+                    return seeds;
+                }
+                if (wordsPerBucket == 1)
+                {
+                    throw new IllegalStateException("Could not build a perfect hash for " + size + " words");
+                }
+                System.out.println("[WordCorpus] Could not place a bucket of the perfect hash for " + size
+                        + " words, trying again with " + wordsPerBucket / 2 + " words per bucket");
+            }
+        }
+
+        /**
+         * Hash and displace: place the biggest buckets first, trying seeds for
+         * each until every word in the bucket lands on a distinct free slot.
+         * Returns false if a bucket runs out of seeds.
+         */
+        private static boolean _placeBuckets(final long[] keys, final int[] seeds, final int[] ids)
+        {
+            final int size = keys.length;
+            final int buckets = seeds.length;
+
+            // Group ids by bucket, with a counting sort.
+            final int[] bucketStart = new int[buckets + 1];
+            for (final long key : keys)
+            {
+                bucketStart[_bucket(key, buckets) + 1]++;
+            }
+            int largestBucket = 0;
+            for (int bucket = 0; bucket < buckets; bucket++)
+            {
+                largestBucket = Math.max(largestBucket, bucketStart[bucket + 1]);
+                bucketStart[bucket + 1] += bucketStart[bucket];
+            }
+            final int[] members = new int[size];
+            final int[] next = bucketStart.clone();
+            for (int id = 0; id < size; id++)
+            {
+                members[next[_bucket(keys[id], buckets)]++] = id;
+            }
+
+            // Order buckets by size, largest first, with another counting sort.
+            final int[] bySize = new int[largestBucket + 2];
+            for (int bucket = 0; bucket < buckets; bucket++)
+            {
+                bySize[largestBucket - (bucketStart[bucket + 1] - bucketStart[bucket]) + 1]++;
+            }
+            for (int i = 0; i <= largestBucket; i++)
+            {
+                bySize[i + 1] += bySize[i];
+            }
+            final int[] order = new int[buckets];
+            for (int bucket = 0; bucket < buckets; bucket++)
+            {
+                order[bySize[largestBucket - (bucketStart[bucket + 1] - bucketStart[bucket])]++] = bucket;
+            }
+
+            final long[] taken = new long[(size + 63) >>> 6];
+            final int[] slots = new int[largestBucket];
+            for (final int bucket : order)
+            {
+                final int from = bucketStart[bucket];
+                final int count = bucketStart[bucket + 1] - from;
+                if (count == 0)
+                {
+                    // Buckets are sorted by size, so the rest are empty too.
+                    break;
+                }
+
+                int seed = 0;
+                while (!_tryPlace(keys, members, from, count, seed, taken, slots))
+                {
+                    if (++seed == MAX_SEED_ATTEMPTS)
+                    {
+                        return false;
+                    }
+                }
+
+                seeds[bucket] = seed;
+                for (int i = 0; i < count; i++)
+                {
+                    ids[slots[i]] = members[from + i];
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Try to send every word of a bucket to a distinct free slot with the
+         * given seed. Marks the slots as taken only if all of them are free.
+         */
+        private static boolean _tryPlace(final long[] keys,
+                                         final int[] members,
+                                         final int from,
+                                         final int count,
+                                         final int seed,
+                                         final long[] taken,
+                                         final int[] slots)
+        {
+            final int size = keys.length;
+            for (int i = 0; i < count; i++)
+            {
+                final int slot = _slot(keys[members[from + i]], seed, size);
+                if ((taken[slot >>> 6] & (1L << slot)) != 0)
+                {
+                    return false;
+                }
+                for (int j = 0; j < i; j++)
+                {
+                    if (slots[j] == slot)
+                    {
+                        return false;
+                    }
+                }
+                slots[i] = slot;
+            }
+
+            for (int i = 0; i < count; i++)
+            {
+                taken[slots[i] >>> 6] |= 1L << slots[i];
+            }
+            return true;
+        }
+
+        private static void _deleteQuietly(final Path path)
+        {
+            try
+            {
+                Files.deleteIfExists(path);
+            }
+            catch (IOException e)
+            {
+                System.out.println("[WordCorpus] Error deleting " + path + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.dparsons.wordle;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * The words of a corpus compiled into a minimized DAWG: a trie in which
+ * each level is a letter position and identical suffix subtrees are merged
+ * into one. Words sharing their endings (every "-ight", every "-ound")
+ * share nodes, so the graph is much smaller than the list of words.
+ *
+ * Letter constraints are applied on the way down, so a whole subtree is
+ * dropped at the first position that fails: a green follows a single
+ * edge, and gray letters are skipped at every position.
+ *
+ * Each edge records how many words sort before it within its node, so the
+ * sum along a path is the word's alphabetical ordinal, which maps back to
+ * its id in the corpus. Each node also records the lowest id among the words
+ * that pass through it. Wikipedia ids are ranks by count, so that's the
+ * highest count below the node. Merged nodes are reached from several
+ * prefixes, so it's a bound rather than exact, but it's enough to find the
+ * best-ranked match best-first while leaving worse subtrees unvisited.
+ */
+public class WordGraph
+{
+    private static final int TERMINAL = 0;
+
+    private final int wordLength;
+    private final int root;
+
+    // Edges of node n are firstEdge[n] up to firstEdge[n + 1], sorted by letter.
+    private final int[] firstEdge;
+    private final byte[] edgeLetters;
+    private final int[] edgeTargets;
+
+    // Number of words below earlier edges of the same node.
+    private final int[] edgeOrdinals;
+
+    // Lowest id of any word passing through each node.
+    private final int[] bestIds;
+
+    // Id of each word, by alphabetical ordinal.
+    private final int[] idsByOrdinal;
+
+    private WordGraph(final WordCorpus corpus, final Builder builder, final int[] idsByOrdinal)
+    {
+        this.wordLength = corpus.wordLength();
+        this.root = builder.root;
+        this.firstEdge = Arrays.copyOf(builder.firstEdge, builder.nodeCount + 1);
+        this.firstEdge[builder.nodeCount] = builder.edgeCount;
+        this.edgeLetters = Arrays.copyOf(builder.edgeLetters, builder.edgeCount);
+        this.edgeTargets = Arrays.copyOf(builder.edgeTargets, builder.edgeCount);
+        this.edgeOrdinals = Arrays.copyOf(builder.edgeOrdinals, builder.edgeCount);
+        this.idsByOrdinal = idsByOrdinal;
+        this.bestIds = new int[builder.nodeCount];
+        Arrays.fill(this.bestIds, Integer.MAX_VALUE);
+
+        // Walk every word once to find the best id below each node.
+        for (int ordinal = 0; ordinal < idsByOrdinal.length; ordinal++)
+        {
+            final int id = idsByOrdinal[ordinal];
+            int node = root;
+            for (int position = 0; position < wordLength; position++)
+            {
+                bestIds[node] = Math.min(bestIds[node], id);
+                node = edgeTargets[_edge(node, corpus.letter(position, id))];
+            }
+        }
+    }
+
+    /**
+     * Compile the words of a corpus into a graph.
+     */
+    public static WordGraph build(final WordCorpus corpus)
+    {
+        // Sort words alphabetically. Packed words sort the same way.
+        final long[] keys = new long[corpus.size()];
+        for (int id = 0; id < keys.length; id++)
+        {
+            keys[id] = corpus.key(id);
+        }
+        Arrays.parallelSort(keys);
+
+        final int[] idsByOrdinal = new int[keys.length];
+        final Builder builder = new Builder(corpus.wordLength());
+        for (int ordinal = 0; ordinal < keys.length; ordinal++)
+        {
+            idsByOrdinal[ordinal] = corpus.indexOfKey(keys[ordinal]);
+            builder.add(keys[ordinal]);
+        }
+        builder.finish();
+        return new WordGraph(corpus, builder, idsByOrdinal);
+    }
+
+    public int getNodeCount()
+    {
+        return firstEdge.length - 1;
+    }
+
+    public int getEdgeCount()
+    {
+        return edgeLetters.length;
+    }
+
+    /**
+     * Hand the id of every word satisfying the constraints to the consumer,
+     * in alphabetical order. Only subtrees that can still hold a match are visited.
+     */
+    public void forEach(final LetterConstraints constraints, final IntConsumer consumer)
+    {
+        final LetterPath path = new LetterPath(constraints);
+        _visit(root, 0, 0, path, consumer);
+    }
+
+    /**
+     * Return the id of the best-ranked word (the lowest id) that satisfies
+     * the constraints and is accepted, or -1 if there is none. Expands the
+     * most promising subtree first, and stops at the first complete word
+     * that no unexpanded subtree can beat.
+     */
+    public int best(final LetterConstraints constraints, final IntPredicate accept)
+    {
+        final PriorityQueue<Candidate> queue = new PriorityQueue<>(Candidate.BY_BOUND);
+        queue.add(new Candidate(bestIds[root], root, 0, 0L, 0));
+        final LetterPath path = new LetterPath(constraints);
+
+        while (!queue.isEmpty())
+        {
+            final Candidate candidate = queue.poll();
+            if (candidate.depth == wordLength)
+            {
+                if (accept.test(candidate.bound))
+                {
+                    return candidate.bound;
+                }
+                continue;
+            }
+
+            path.reset(candidate.prefix, candidate.depth);
+            for (int edge = firstEdge[candidate.node]; edge < firstEdge[candidate.node + 1]; edge++)
+            {
+                final int letter = edgeLetters[edge];
+                if (!path.push(candidate.depth, letter))
+                {
+                    continue;
+                }
+                path.pop(letter);
+
+                final int target = edgeTargets[edge];
+                final int ordinal = candidate.ordinal + edgeOrdinals[edge];
+                final long prefix = (candidate.prefix << 5) | letter;
+                final int bound = target == TERMINAL ? idsByOrdinal[ordinal] : bestIds[target];
+                queue.add(new Candidate(bound, target, candidate.depth + 1, prefix, ordinal));
+            }
+        }
+        return -1;
+    }
+
+    private void _visit(final int node,
+                        final int depth,
+                        final int ordinal,
+                        final LetterPath path,
+                        final IntConsumer consumer)
+    {
+        if (depth == wordLength)
+        {
+            consumer.accept(idsByOrdinal[ordinal]);
+            return;
+        }
+
+        for (int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++)
+        {
+            final int letter = edgeLetters[edge];
+            if (path.push(depth, letter))
+            {
+                _visit(edgeTargets[edge], depth + 1, ordinal + edgeOrdinals[edge], path, consumer);
+                path.pop(letter);
+            }
+        }
+    }
+
+    private int _edge(final int node, final int letter)
+    {
+        for (int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++)
+        {
+            if (edgeLetters[edge] == letter)
+            {
+                return edge;
+            }
+        }
+        throw new IllegalStateException("Word missing from graph");
+    }
+
+    /**
+     * Letter counts along the current path, checked against the constraints
+     * as each letter is added. A letter is refused if it isn't allowed at its
+     * position, if it occurs too often, or if the positions left are too few
+     * for the letters the word still has to contain.
+     */
+    private class LetterPath
+    {
+        private final LetterConstraints constraints;
+        private final int[] counts = new int[26];
+        private int missing;
+
+        private LetterPath(final LetterConstraints constraints)
+        {
+            this.constraints = constraints;
+            this.missing = constraints.getRequiredLetters();
+        }
+
+        private void reset(final long prefix, final int depth)
+        {
+            Arrays.fill(counts, 0);
+            missing = constraints.getRequiredLetters();
+            for (int position = 0; position < depth; position++)
+            {
+                final int letter = (int) (prefix >>> (5 * (depth - 1 - position))) & 31;
+                if (counts[letter]++ < constraints.getMinimumCount(letter))
+                {
+                    missing--;
+                }
+            }
+        }
+
+        private boolean push(final int position, final int letter)
+        {
+            if (!constraints.allows(position, letter) || counts[letter] >= constraints.getMaximumCount(letter))
+            {
+                return false;
+            }
+
+            final boolean required = counts[letter] < constraints.getMinimumCount(letter);
+            final int remaining = wordLength - position - 1;
+            if (missing - (required ? 1 : 0) > remaining)
+            {
+                return false;
+            }
+
+            counts[letter]++;
+            if (required)
+            {
+                missing--;
+            }
+            return true;
+        }
+
+        private void pop(final int letter)
+        {
+            if (--counts[letter] < constraints.getMinimumCount(letter))
+            {
+                missing++;
+            }
+        }
+    }
+
+    /**
+     * A subtree, or a complete word, waiting to be expanded. The bound is the
+     * lowest id it could hold; for a complete word, its id.
+     */
+    private static class Candidate
+    {
+        // Complete words first on ties, as no subtree can hold a lower id than its bound.
+        private static final Comparator<Candidate> BY_BOUND = Comparator
+                .comparingInt((Candidate candidate) -> candidate.bound)
+                .thenComparingInt(candidate -> -candidate.depth);
+
+        private final int bound;
+        private final int node;
+        private final int depth;
+        private final long prefix;
+        private final int ordinal;
+
+        private Candidate(final int bound, final int node, final int depth, final long prefix, final int ordinal)
+        {
+            this.bound = bound;
+            this.node = node;
+            this.depth = depth;
+            this.prefix = prefix;
+            this.ordinal = ordinal;
+        }
+    }
+
+    /**
+     * Builds a minimized graph from words added in alphabetical order
+     * (Daciuk et al.). Only the nodes along the most recent word can still
+     * change, so when the next word diverges from it, the nodes below the
+     * divergence are finished: replaced by an identical node already built,
+     * or registered as a new one.
+     */
+    private static class Builder
+    {
+        private final int wordLength;
+
+        // Nodes along the most recent word, by depth, still open for new edges.
+        private final byte[][] openLetters;
+        private final int[][] openTargets;
+        private final int[] openEdgeCounts;
+        private long previousKey = -1;
+
+        // Finished nodes, keyed by their edges.
+        private final Map<NodeKey, Integer> register = new HashMap<>();
+        private int[] wordsBelow = new int[1024];
+
+        private int[] firstEdge = new int[1024];
+        private byte[] edgeLetters = new byte[4096];
+        private int[] edgeTargets = new int[4096];
+        private int[] edgeOrdinals = new int[4096];
+        private int nodeCount = 0;
+        private int edgeCount = 0;
+        private int root;
+
+        private Builder(final int wordLength)
+        {
+            this.wordLength = wordLength;
+            this.openLetters = new byte[wordLength][26];
+            this.openTargets = new int[wordLength][26];
+            this.openEdgeCounts = new int[wordLength];
+
+            // The terminal node, shared by every word.
+            _addNode(new byte[0], new int[0], 0);
+        }
+
+        private void add(final long key)
+        {
+            final int common = previousKey < 0 ? 0 : _commonPrefix(previousKey, key);
+            _finishBelow(common);
+
+            for (int depth = common; depth < wordLength; depth++)
+            {
+                final int edge = openEdgeCounts[depth]++;
+                openLetters[depth][edge] = (byte) _letter(key, depth);
+                // Filled in when the node below is finished; the last letter leads to the terminal.
+                openTargets[depth][edge] = TERMINAL;
+            }
+            previousKey = key;
+        }
+
+        private void finish()
+        {
+            _finishBelow(0);
+            root = _finish(0);
+        }
+
+        /**
+         * Finish the open nodes deeper than the given depth, deepest first,
+         * and point their parents' last edges at them.
+         */
+        private void _finishBelow(final int depth)
+        {
+            for (int d = wordLength - 1; d > depth; d--)
+            {
+                if (openEdgeCounts[d] > 0)
+                {
+                    openTargets[d - 1][openEdgeCounts[d - 1] - 1] = _finish(d);
+                }
+            }
+        }
+
+        private int _finish(final int depth)
+        {
+            final int count = openEdgeCounts[depth];
+            final byte[] letters = Arrays.copyOf(openLetters[depth], count);
+            final int[] targets = Arrays.copyOf(openTargets[depth], count);
+            openEdgeCounts[depth] = 0;
+
+            final NodeKey key = new NodeKey(letters, targets);
+            final Integer existing = register.get(key);
+            if (existing != null)
+            {
+                return existing;
+            }
+
+            int words = 0;
+            for (final int target : targets)
+            {
+                words += target == TERMINAL ? 1 : wordsBelow[target];
+            }
+            final int node = _addNode(letters, targets, words);
+            register.put(key, node);
+            return node;
+        }
+
+        private int _addNode(final byte[] letters, final int[] targets, final int words)
+        {
+            if (nodeCount == firstEdge.length)
+            {
+                firstEdge = Arrays.copyOf(firstEdge, nodeCount * 2);
+                wordsBelow = Arrays.copyOf(wordsBelow, nodeCount * 2);
+            }
+            while (edgeCount + letters.length > edgeLetters.length)
+            {
+                edgeLetters = Arrays.copyOf(edgeLetters, edgeLetters.length * 2);
+                edgeTargets = Arrays.copyOf(edgeTargets, edgeTargets.length * 2);
+                edgeOrdinals = Arrays.copyOf(edgeOrdinals, edgeOrdinals.length * 2);
+            }
+
+            firstEdge[nodeCount] = edgeCount;
+            wordsBelow[nodeCount] = words;
+            int ordinal = 0;
+            for (int i = 0; i < letters.length; i++)
+            {
+                edgeLetters[edgeCount] = letters[i];
+                edgeTargets[edgeCount] = targets[i];
+                edgeOrdinals[edgeCount] = ordinal;
+                ordinal += targets[i] == TERMINAL ? 1 : wordsBelow[targets[i]];
+                edgeCount++;
+            }
+            return nodeCount++;
+        }
+
+        private int _commonPrefix(final long previous, final long key)
+        {
+            int depth = 0;
+            while (depth < wordLength && _letter(previous, depth) == _letter(key, depth))
+            {
+                depth++;
+            }
+            return depth;
+        }
+
+        private int _letter(final long key, final int depth)
+        {
+            return (int) (key >>> (5 * (wordLength - 1 - depth))) & 31;
+        }
+    }
+
+    /**
+     * The edges of a finished node, which identify it for minimization.
+     */
+    private static class NodeKey
+    {
+        private final byte[] letters;
+        private final int[] targets;
+        private final int hash;
+
+        private NodeKey(final byte[] letters, final int[] targets)
+        {
+            this.letters = letters;
+            this.targets = targets;
+            this.hash = 31 * Arrays.hashCode(letters) + Arrays.hashCode(targets);
+        }
+
+        @Override
+        public boolean equals(final Object other)
+        {
+            if (!(other instanceof NodeKey))
+            {
+                return false;
+            }
+            final NodeKey key = (NodeKey) other;
+            return Arrays.equals(letters, key.letters) && Arrays.equals(targets, key.targets);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+}
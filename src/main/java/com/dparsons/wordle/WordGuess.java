@@ -1,116 +1,249 @@
 package com.dparsons.wordle;
 
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-
 /**
- * Simple model representing the guess of a single word.
+ * Simple model representing the guess of a single word, and the scores
+ * it received. The word is packed five bits per letter into a long, and
+ * the scores are kept as a base-3 feedback pattern (see {@link FeedbackPattern})
+ * along with bitmasks of the positions scored green (2), yellow (1) and
+ * gray (0). Everything is computed once, up front, so none of the accessors
+ * allocate.
  */
-public class WordGuess
+public final class WordGuess
 {
-    private final List<LetterGuess> letters;
-    private final List<String> lettersInCorrectPosition;
-    private final List<String> lettersInWrongPosition;
-    private final boolean invalid;
+    private static final int BITS_PER_LETTER = 5;
+    private static final int LETTER_MASK = (1 << BITS_PER_LETTER) - 1;
+    private static final int INVALID_PATTERN = -1;
+
+    private final long packedWord;
+    private final int length;
+    private final int pattern;
+
+    // Bit n is set if the letter at position n received that score.
+    private final int greenMask;
+    private final int yellowMask;
+    private final int grayMask;
+
+    // Bit n is set if the nth letter of the alphabet was scored gray anywhere.
+    private final int grayLetters;
+
+    // Letters scored green or yellow, with their multiplicities.
+    private final LetterSignature lettersInWord;
+
+    private WordGuess(final CharSequence word, final int pattern)
+    {
+        this.length = word.length();
+        this.pattern = pattern;
+
+        this.packedWord = pack(word);
+
+        int green = 0;
+        int yellow = 0;
+        int gray = 0;
+        int grayLetters = 0;
+        LetterSignature lettersInWord = LetterSignature.EMPTY;
+        if (pattern != INVALID_PATTERN)
+        {
+            int remaining = pattern;
+            for (int position = length - 1; position >= 0; position--)
+            {
+                final int score = remaining % 3;
+                final int letter = letterAt(position);
+                remaining /= 3;
+                if (score == 2)
+                {
+                    green |= 1 << position;
+                }
+                else if (score == 1)
+                {
+                    yellow |= 1 << position;
+                }
+                else
+                {
+                    gray |= 1 << position;
+                    grayLetters |= 1 << letter;
+                }
+                if (score > 0)
+                {
+                    lettersInWord = lettersInWord.plus(letter);
+                }
+            }
+        }
+        this.greenMask = green;
+        this.yellowMask = yellow;
+        this.grayMask = gray;
+        this.grayLetters = grayLetters;
+        this.lettersInWord = lettersInWord;
+    }
+
+    /**
+     * Build a guess from a word and the base-3 feedback pattern
+     * it received. See {@link FeedbackPattern}.
+     */
+    public static WordGuess fromPattern(final String word, final int pattern)
+    {
+        return new WordGuess(word, pattern);
+    }
+
+    /**
+     * Build a guess from a word and its scores as typed, one digit (0-2) per letter.
+     */
+    public static WordGuess fromScores(final String word, final String scores)
+    {
+        if (scores.length() != word.length())
+        {
+            throw new IllegalArgumentException("Expected " + word.length() + " scores, got: " + scores);
+        }
+        for (int position = 0; position < scores.length(); position++)
+        {
+            final char score = scores.charAt(position);
+            if (score < '0' || score > '2')
+            {
+                throw new IllegalArgumentException("Scores must be 0, 1 or 2, got: " + scores);
+            }
+        }
+        return new WordGuess(word, FeedbackPattern.fromScores(scores));
+    }
 
-    public WordGuess(final List<LetterGuess> letters)
+    /**
+     * Build a guess of a word that Wordle rejected, which has no scores.
+     */
+    public static WordGuess invalid(final String word)
     {
-        this.letters = letters;
-        this.lettersInCorrectPosition = _getLettersInCorrectPosition();
-        this.lettersInWrongPosition = _getLettersInWrongPosition();
-        this.invalid = _isGuessInvalid();
+        return new WordGuess(word, INVALID_PATTERN);
+    }
+
+    /**
+     * Pack a word five bits per letter, first letter most significant, as
+     * {@link #getPackedWord()} returns it. Used to store and send words compactly.
+     */
+    public static long pack(final CharSequence word)
+    {
+        long packed = 0;
+        for (int position = 0; position < word.length(); position++)
+        {
+            packed = (packed << BITS_PER_LETTER) | _letterIndex(word.charAt(position));
+        }
+        return packed;
+    }
+
+    /**
+     * Unpack a word of the given length packed by {@link #pack(CharSequence)}.
+     */
+    public static String unpack(final long packed, final int wordLength)
+    {
+        final char[] word = new char[wordLength];
+        for (int position = 0; position < wordLength; position++)
+        {
+            word[position] = (char) ('a' + ((packed >>> (BITS_PER_LETTER * (wordLength - 1 - position))) & LETTER_MASK));
+        }
+        return new String(word);
     }
 
     public boolean isCorrect()
     {
-        return letters.stream().allMatch(letter -> letter.getScore() == 2);
+        return !isInvalid() && Integer.bitCount(greenMask) == length;
+    }
+
+    public boolean isInvalid()
+    {
+        return this.pattern == INVALID_PATTERN;
     }
 
     /**
-     * Return a List representing the portion of the word that is correct,
-     * meaning the letters are positioned correctly. For example, if the
-     * answer is FINAL and this word guess is FRAIL, this should return
-     * [ F, null, null, null, L ].
+     * Return the scores of this guess as a base-3 feedback pattern.
+     * Not meaningful for invalid guesses.
      */
-    public List<String> getLettersInCorrectPosition()
+    public int getPattern()
     {
-        return this.lettersInCorrectPosition;
+        return this.pattern;
     }
 
-    private List<String> _getLettersInCorrectPosition()
+    public int length()
     {
-        return letters.stream()
-                .map(WordGuess::_correctlyPositionedLetterOrNull)
-                .collect(Collectors.toList());
+        return this.length;
     }
 
     /**
-     * Return a List representing the portion of the word that is semi-correct,
-     * meaning the letters are right but positioned incorrectly. For example,
-     * if the answer is FINAL and this word guess is FRAIL, this should return
-     * [ null, I, null, A, null ].
+     * Return the letter at a position, as an index into the alphabet (0-25).
      */
-    public List<String> getLettersInWrongPosition()
+    public int letterAt(final int position)
     {
-        return this.lettersInWrongPosition;
+        return (int) (packedWord >>> (BITS_PER_LETTER * (length - 1 - position))) & LETTER_MASK;
     }
 
-    private List<String> _getLettersInWrongPosition()
+    /**
+     * Return the word packed five bits per letter, first letter most significant.
+     */
+    public long getPackedWord()
     {
-        return letters.stream()
-                .map(WordGuess::_incorrectlyPositionedLetterOrNull)
-                .collect(Collectors.toList());
+        return this.packedWord;
     }
 
-    public List<String> getLettersInWord()
+    public int getGreenMask()
     {
-        return letters.stream()
-                .filter(letter -> letter.getScore() > 0)
-                .map(LetterGuess::getLetter)
-                .collect(Collectors.toList());
+        return this.greenMask;
     }
 
-    public Set<String> getCompletelyIncorrectLetters()
+    public int getYellowMask()
     {
-        return letters.stream()
-                .filter(letter -> letter.getScore() == 0)
-                .map(LetterGuess::getLetter)
-                .collect(Collectors.toSet());
+        return this.yellowMask;
     }
 
-    private boolean _isGuessInvalid()
+    public int getGrayMask()
     {
-        return this.letters.stream()
-                .map(LetterGuess::getScore)
-                .anyMatch(score -> score == -1);
+        return this.grayMask;
     }
 
-    public boolean isInvalid()
+    /**
+     * Return a bitmask of the letters (bit 0 for "a") scored gray in at least
+     * one position. For example, if the answer is FINAL and this word guess
+     * is FRAIL, only R is set.
+     */
+    public int getGrayLetters()
     {
-        return this.invalid;
+        return this.grayLetters;
     }
 
-    @Override
-    public String toString()
+    /**
+     * Return the letters known to be in the word, meaning every letter scored
+     * green or yellow. A letter scored twice is counted twice.
+     */
+    public LetterSignature getLettersInWord()
     {
-        return letters.stream()
-                .map(LetterGuess::getLetter)
-                .collect(Collectors.joining());
+        return this.lettersInWord;
     }
 
-    private static String _correctlyPositionedLetterOrNull(final LetterGuess guess)
+    /**
+     * Return the word's letters as indexes into the alphabet, as used by {@link LetterColumns}.
+     */
+    public byte[] getLetters()
     {
-        return _scoredLetterOrNull(2, guess);
+        final byte[] letters = new byte[length];
+        for (int position = 0; position < length; position++)
+        {
+            letters[position] = (byte) letterAt(position);
+        }
+        return letters;
     }
 
-    private static String _incorrectlyPositionedLetterOrNull(final LetterGuess guess)
+    @Override
+    public String toString()
     {
-        return _scoredLetterOrNull(1, guess);
+        final char[] word = new char[length];
+        for (int position = 0; position < length; position++)
+        {
+            word[position] = (char) ('a' + letterAt(position));
+        }
+        return new String(word);
     }
 
-    private static String _scoredLetterOrNull(final int score, final LetterGuess guess)
+    private static int _letterIndex(final char letter)
     {
-        return guess.getScore() == score ? guess.getLetter() : null;
+        final int index = Character.toLowerCase(letter) - 'a';
+        if (index < 0 || index >= 26)
+        {
+            throw new IllegalArgumentException("Not a letter: " + letter);
+        }
+        return index;
     }
 }
@@ -11,6 +11,11 @@ import java.util.List;
  */
 public class WordleConstants
 {
+    // Word lengths the solver can play. Five letters is the original game, and the default.
+    public static final int MINIMUM_WORD_LENGTH = 4;
+    public static final int MAXIMUM_WORD_LENGTH = 11;
+    public static final int DEFAULT_WORD_LENGTH = 5;
+
     public static final List<String> VOWELS_BY_FREQUENCY =
             ImmutableList.of("e", "a", "i", "o", "u", "y");
 
@@ -22,4 +27,9 @@ public class WordleConstants
             Arrays.asList("e", "a", "r", "i", "o", "t", "n", "s", "l",
                     "c", "u", "d", "p", "m", "h", "g", "b", "f",
                     "y", "w", "k", "v", "x", "z", "j", "q");
+
+    public static boolean isSupportedWordLength(final int wordLength)
+    {
+        return wordLength >= MINIMUM_WORD_LENGTH && wordLength <= MAXIMUM_WORD_LENGTH;
+    }
 }
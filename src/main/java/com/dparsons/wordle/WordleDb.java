@@ -4,11 +4,14 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.ObjIntConsumer;
 
 public class WordleDb
 {
     private static final String SELECT_WORD_COUNTS =
-            "SELECT word, count FROM wordle_solver.t_word_counts;";
+            "SELECT word, count FROM wordle_solver.t_word_counts WHERE LENGTH(word) = ? ORDER BY count DESC, word;";
+
+    private static final int WORD_COUNTS_FETCH_SIZE = 10_000;
 
     private static final String SELECT_INVALID_WORDS =
             "SELECT word FROM wordle_solver.t_invalid_words;";
@@ -16,6 +19,22 @@ public class WordleDb
     private static final String INSERT_INVALID_WORD =
             "INSERT into wordle_solver.t_invalid_words(word) VALUES(?) ON CONFLICT DO NOTHING;";
 
+    private static final String SELECT_OPENING_BOOK =
+            "SELECT opening_word, first_pattern, second_pattern, next_guess FROM wordle_solver.t_opening_book;";
+
+    private static final int OPENING_BOOK_FETCH_SIZE = 10_000;
+
+    private static final String UPSERT_OPENING_BOOK_ENTRY =
+            "INSERT into wordle_solver.t_opening_book(opening_word, first_pattern, second_pattern, next_guess) " +
+            "VALUES(?, ?, ?, ?) " +
+            "ON CONFLICT(opening_word, first_pattern, second_pattern) DO UPDATE SET next_guess = excluded.next_guess;";
+
+    private static final Histogram FOR_EACH_WORD_COUNT_TIME = Metrics.histogram("db.forEachWordCount" + Metrics.NANOS);
+    private static final Histogram GET_INVALID_WORDS_TIME = Metrics.histogram("db.getInvalidWords" + Metrics.NANOS);
+    private static final Histogram STORE_INVALID_WORD_TIME = Metrics.histogram("db.storeInvalidWord" + Metrics.NANOS);
+    private static final Histogram GET_OPENING_BOOKS_TIME = Metrics.histogram("db.getOpeningBooks" + Metrics.NANOS);
+    private static final Histogram STORE_OPENING_BOOK_TIME = Metrics.histogram("db.storeOpeningBook" + Metrics.NANOS);
+
     private final DbClient dbClient;
 
     public WordleDb(final String host,
@@ -26,61 +45,124 @@ public class WordleDb
         this.dbClient = new DbClient(host, port, username, password);
     }
 
-    public Map<String, Integer> getWikipediaDictionary()
+    /**
+     * Stream the Wikipedia word counts for words of the given length, most
+     * frequent first, without holding the whole table in memory. Returns the
+     * number of rows read.
+     */
+    public int forEachWordCount(final int wordLength, final ObjIntConsumer<String> consumer)
     {
+        final long start = Metrics.startTimer();
+        final DbCallEvent event = new DbCallEvent("forEachWordCount");
+        event.begin();
         try (final Connection connection = this.dbClient.getConnection())
         {
-            return this.dbClient.query(connection, SELECT_WORD_COUNTS, WordleDb::_buildWordCounts);
+            final int rows = this.dbClient.queryEach(connection, SELECT_WORD_COUNTS, List.of(wordLength), WORD_COUNTS_FETCH_SIZE,
+                    row -> consumer.accept(row.getString("word"), row.getInt("count")));
+            event.rows = rows;
+            return rows;
         }
         catch (SQLException e)
         {
             throw new RuntimeException("Error loading the Wikipedia dictionary. Error: " + e.getMessage());
         }
+        finally
+        {
+            FOR_EACH_WORD_COUNT_TIME.recordSince(start);
+            event.commit();
+        }
     }
 
     public Set<String> getInvalidWords()
     {
+        final long start = Metrics.startTimer();
+        final DbCallEvent event = new DbCallEvent("getInvalidWords");
+        event.begin();
         try (final Connection connection = this.dbClient.getConnection())
         {
-            return this.dbClient.query(connection, SELECT_INVALID_WORDS, WordleDb::_buildInvalidWords);
+            final Set<String> invalidWords =
+                    this.dbClient.query(connection, SELECT_INVALID_WORDS, WordleDb::_buildInvalidWords);
+            event.rows = invalidWords.size();
+            return invalidWords;
         }
         catch (SQLException e)
         {
             throw new RuntimeException("Error loading invalid words. Error: " + e.getMessage());
         }
+        finally
+        {
+            GET_INVALID_WORDS_TIME.recordSince(start);
+            event.commit();
+        }
     }
 
     public void storeInvalidWord(final String word)
     {
+        final long start = Metrics.startTimer();
+        final DbCallEvent event = new DbCallEvent("storeInvalidWord");
+        event.begin();
         try (final Connection connection = this.dbClient.getConnection())
         {
             this.dbClient.insertSingleQuery(connection, INSERT_INVALID_WORD, word);
+            event.rows = 1;
         }
         catch (SQLException e)
         {
             throw new RuntimeException("Error storing invalid word. Error: " + e.getMessage());
         }
+        finally
+        {
+            STORE_INVALID_WORD_TIME.recordSince(start);
+            event.commit();
+        }
     }
 
-    private static Map<String, Integer> _buildWordCounts(final ResultSet resultSet)
+    /**
+     * Load every precomputed opening book, keyed by opening word.
+     */
+    public Map<String, OpeningBook> getOpeningBooks()
     {
-        final Map<String, Integer> wordCounts = new HashMap<>();
-
-        try
+        final long start = Metrics.startTimer();
+        final DbCallEvent event = new DbCallEvent("getOpeningBooks");
+        event.begin();
+        try (final Connection connection = this.dbClient.getConnection())
         {
-            while(resultSet.next())
-            {
-                final String word = resultSet.getString("word");
-                final Integer count = resultSet.getInt("count");
-                wordCounts.put(word, count);
-            }
+            final Map<String, OpeningBook> books = new HashMap<>();
+            event.rows = this.dbClient.queryEach(connection, SELECT_OPENING_BOOK, OPENING_BOOK_FETCH_SIZE,
+                    row -> _addOpeningBookEntry(books, row));
+            return books;
         }
         catch (SQLException e)
         {
-            throw new RuntimeException("Error loading the Wikipedia dictionary. Error: " + e.getMessage());
+            throw new RuntimeException("Error loading opening books. Error: " + e.getMessage());
         }
+        finally
+        {
+            GET_OPENING_BOOKS_TIME.recordSince(start);
+            event.commit();
+        }
+    }
 
-        return wordCounts;
+    public void storeOpeningBook(final OpeningBook book)
+    {
+        final long start = Metrics.startTimer();
+        final DbCallEvent event = new DbCallEvent("storeOpeningBook");
+        event.begin();
+        try (final Connection connection = this.dbClient.getConnection())
+        {
+            final List<Object[]> rows = book.toRows();
+            this.dbClient.insertBatch(connection, UPSERT_OPENING_BOOK_ENTRY, rows);
+            event.rows = rows.size();
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error storing opening book. Error: " + e.getMessage());
+        }
+        finally
+        {
+            STORE_OPENING_BOOK_TIME.recordSince(start);
+            event.commit();
+        }
     }
 
     private static Set<String> _buildInvalidWords(final ResultSet resultSet)
@@ -102,4 +184,12 @@ public class WordleDb
 
         return invalidWords;
     }
+
+    private static void _addOpeningBookEntry(final Map<String, OpeningBook> books, final ResultSet row) throws SQLException
+    {
+        final OpeningBook book = books.computeIfAbsent(row.getString("opening_word"), OpeningBook::new);
+        book.put(row.getInt("first_pattern"),
+                row.getInt("second_pattern"),
+                row.getString("next_guess"));
+    }
 }
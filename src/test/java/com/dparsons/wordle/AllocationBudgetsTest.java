@@ -0,0 +1,339 @@
+package com.dparsons.wordle;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks how many bytes a steady-state solver turn allocates. We run many
+ * sessions per JVM, so allocation per turn turns straight into GC load.
+ *
+ * Builds a fixed fixture dictionary (seeded, so every run sees the same
+ * words), warms each operation up, and then measures the bytes the test
+ * thread allocates per call to Dictionary.filter, findMatches and the full
+ * recommendation, using ThreadMXBean. Each operation is measured with every
+ * feedback scorer, whichever one the JVM selected, against the same budget,
+ * so a scorer that allocates more fails here. A failure lists the
+ * operation's top allocation sites, sampled with the flight recorder.
+ *
+ * The fixture is smaller than the parallel filter threshold, so filtering
+ * stays on the measured thread.
+ */
+class AllocationBudgetsTest
+{
+    private static final long SEED = 20220214L;
+    private static final int WORD_LENGTH = 5;
+    private static final int PLAINTEXT_WORDS = 12000;
+    private static final int WIKIPEDIA_WORDS = 8000;
+
+    private static final long FILTER_BUDGET = 16 * 1024;
+    private static final long FIND_MATCHES_BUDGET = 16 * 1024;
+    private static final long RECOMMEND_BUDGET = 8 * 1024;
+
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int MEASURED_ITERATIONS = 500;
+    private static final int TOP_SITES = 5;
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    private static final String PACKAGE = "com.dparsons.wordle.";
+
+    private static final String OPENING_WORD = "slate";
+    private static final String[] ANSWERS = { "crane", "piano", "geese", "youth", "spice" };
+
+    // Letters weighted roughly by English frequency, so the fixture narrows like a real dictionary.
+    private static final String LETTER_WEIGHTS = "eeeeeeeaaaaaarrrrriiiiiooooootttttnnnnsssssllllcccuuuddpmmhgbfywkvxzjq";
+
+    // Each result is kept here, so the work can't be optimized away.
+    private static volatile Object sink;
+
+    private static Path directory;
+
+    // The vector scorer is only measured when its module is available, which the Gradle build ensures.
+    private static List<FeedbackScorer> scorers;
+
+    // The full dictionary, filtering with each scorer.
+    private static Map<FeedbackScorer, Dictionary> bases;
+
+    // Dictionaries narrowed by each answer's opening guess, built before measuring so only the search is counted.
+    private static Map<FeedbackScorer, Map<String, Dictionary>> narrowed;
+
+    private static int nextAnswer = 0;
+
+    @BeforeAll
+    static void buildFixture() throws IOException
+    {
+        directory = Files.createTempDirectory("wordle-allocation");
+        final DictionarySnapshot snapshot = _buildFixture(directory);
+
+        scorers = new ArrayList<>();
+        scorers.add(new ScalarFeedbackScorer());
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+        {
+            scorers.add(new VectorFeedbackScorer());
+        }
+
+        bases = new HashMap<>();
+        narrowed = new HashMap<>();
+        for (FeedbackScorer scorer : scorers)
+        {
+            final Dictionary base = new Dictionary(snapshot, scorer);
+            bases.put(scorer, base);
+            narrowed.put(scorer, _narrowEach(base));
+        }
+    }
+
+    @AfterAll
+    static void deleteFixture() throws IOException
+    {
+        try (final Stream<Path> files = Files.list(directory))
+        {
+            for (Path file : (Iterable<Path>) files::iterator)
+            {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void filterStaysWithinBudget()
+    {
+        for (FeedbackScorer scorer : scorers)
+        {
+            final Dictionary base = bases.get(scorer);
+            _assertWithinBudget("filter", FILTER_BUDGET, scorer, () -> _filter(base));
+        }
+    }
+
+    @Test
+    void findMatchesStaysWithinBudget()
+    {
+        for (FeedbackScorer scorer : scorers)
+        {
+            final Map<String, Dictionary> dictionaries = narrowed.get(scorer);
+            _assertWithinBudget("findMatches", FIND_MATCHES_BUDGET, scorer, () -> _findMatches(dictionaries));
+        }
+    }
+
+    @Test
+    void recommendStaysWithinBudget()
+    {
+        for (FeedbackScorer scorer : scorers)
+        {
+            final Map<String, Dictionary> dictionaries = narrowed.get(scorer);
+            _assertWithinBudget("recommend", RECOMMEND_BUDGET, scorer, () -> _recommend(dictionaries));
+        }
+    }
+
+    /**
+     * Run an operation until it's warm, then fail if the bytes it allocates
+     * per call are over budget.
+     */
+    private static void _assertWithinBudget(final String operation,
+                                            final long budget,
+                                            final FeedbackScorer scorer,
+                                            final Supplier<Object> body)
+    {
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+        {
+            sink = body.get();
+        }
+
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++)
+        {
+            sink = body.get();
+        }
+        final long perCall = (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_ITERATIONS;
+
+        assertTrue(perCall <= budget, () -> String.format("%s allocated %,d bytes per call with the %s, over its budget of %,d. Top sites:%s",
+                operation, perCall, scorer.getClass().getSimpleName(), budget, _topSites(body)));
+    }
+
+    /**
+     * Narrow a copy of the full dictionary by the opening guess.
+     */
+    private static Object _filter(final Dictionary base)
+    {
+        final Dictionary dictionary = base.copy();
+        dictionary.filter(new DictionaryFilter(_openingGuesses(_nextAnswer())));
+        return dictionary;
+    }
+
+    /**
+     * Search an already narrowed dictionary for a word with each candidate letter.
+     */
+    private static Object _findMatches(final Map<String, Dictionary> narrowed)
+    {
+        final String answer = _nextAnswer();
+        final List<WordGuess> guesses = _openingGuesses(answer);
+        final CandidateLetterMatches matches = new DictionaryFilter(guesses)
+                .withCandidateLetters(guesses.get(0).getLettersInWord(), WordleConstants.ALL_LETTERS_BY_FREQUENCY);
+        narrowed.get(answer).findMatches(matches, 2);
+        return matches;
+    }
+
+    /**
+     * The whole recommendation path, on an already narrowed dictionary.
+     */
+    private static Object _recommend(final Map<String, Dictionary> narrowed)
+    {
+        final String answer = _nextAnswer();
+        return new GuessRecommender(narrowed.get(answer)).recommend(_openingGuesses(answer));
+    }
+
+    private static String _nextAnswer()
+    {
+        nextAnswer = (nextAnswer + 1) % ANSWERS.length;
+        return ANSWERS[nextAnswer];
+    }
+
+    private static Map<String, Dictionary> _narrowEach(final Dictionary base)
+    {
+        final Map<String, Dictionary> dictionaries = new HashMap<>();
+        for (String answer : ANSWERS)
+        {
+            final Dictionary dictionary = base.copy();
+            dictionary.filter(new DictionaryFilter(_openingGuesses(answer)));
+            dictionaries.put(answer, dictionary);
+        }
+        return dictionaries;
+    }
+
+    private static List<WordGuess> _openingGuesses(final String answer)
+    {
+        return List.of(WordGuess.fromPattern(OPENING_WORD, FeedbackPattern.score(OPENING_WORD, answer)));
+    }
+
+    /**
+     * Run the operation again under the flight recorder, and describe the methods
+     * that allocated the most, by sampled weight. Each site is the innermost
+     * solver method on the stack, so library internals are charged to their caller.
+     */
+    private static String _topSites(final Supplier<Object> body)
+    {
+        final Map<String, Long> bytesBySite = new HashMap<>();
+        try (final Recording recording = new Recording())
+        {
+            recording.enable(ALLOCATION_SAMPLE).with("throttle", "off").withStackTrace();
+            recording.start();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++)
+            {
+                sink = body.get();
+            }
+            recording.stop();
+
+            final Path dump = Files.createTempFile("wordle-allocation", ".jfr");
+            recording.dump(dump);
+            for (RecordedEvent event : RecordingFile.readAllEvents(dump))
+            {
+                final String site = event.getEventType().getName().equals(ALLOCATION_SAMPLE) ? _site(event) : null;
+                if (site != null)
+                {
+                    bytesBySite.merge(site, event.getLong("weight"), Long::sum);
+                }
+            }
+            Files.delete(dump);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Unable to sample allocation sites.", e);
+        }
+
+        final long total = bytesBySite.values().stream().mapToLong(Long::longValue).sum();
+        final StringBuilder sites = new StringBuilder();
+        bytesBySite.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP_SITES)
+                .forEach(site -> sites.append(String.format("%n    %5.1f%%  %s",
+                        total > 0 ? 100.0 * site.getValue() / total : 0.0, site.getKey())));
+        return sites.toString();
+    }
+
+    /**
+     * Return the allocation site of a sample, or null if no solver method was
+     * on the stack, meaning the recorder or the harness itself allocated.
+     */
+    private static String _site(final RecordedEvent event)
+    {
+        if (event.getStackTrace() == null)
+        {
+            return null;
+        }
+
+        for (RecordedFrame frame : event.getStackTrace().getFrames())
+        {
+            final String className = frame.getMethod().getType().getName();
+            if (className.startsWith(PACKAGE) && !className.startsWith(AllocationBudgetsTest.class.getName()))
+            {
+                return event.getClass("objectClass").getName() + " in " + className.substring(PACKAGE.length())
+                        + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write a fixture dictionary of random words to the directory. The first
+     * words also make up the Wikipedia dictionary, with Zipf-like counts.
+     */
+    private static DictionarySnapshot _buildFixture(final Path directory)
+    {
+        final Random random = new Random(SEED);
+        final Set<String> words = new LinkedHashSet<>(Arrays.asList(ANSWERS));
+        words.add(OPENING_WORD);
+        final StringBuilder word = new StringBuilder(WORD_LENGTH);
+        while (words.size() < PLAINTEXT_WORDS)
+        {
+            word.setLength(0);
+            for (int position = 0; position < WORD_LENGTH; position++)
+            {
+                word.append(LETTER_WEIGHTS.charAt(random.nextInt(LETTER_WEIGHTS.length())));
+            }
+            words.add(word.toString());
+        }
+
+        final List<String> wordList = new ArrayList<>(words);
+        final WordCorpus wikipedia;
+        try (final WordCorpus.Writer writer = new WordCorpus.Writer(
+                directory.resolve(DictionarySnapshot.WIKIPEDIA_CORPUS), WORD_LENGTH))
+        {
+            for (int rank = 0; rank < WIKIPEDIA_WORDS; rank++)
+            {
+                writer.add(wordList.get(rank), 1_000_000 / (rank + 1));
+            }
+            wikipedia = writer.finish();
+        }
+
+        Collections.sort(wordList);
+        try (final WordCorpus.Writer writer = new WordCorpus.Writer(
+                directory.resolve(DictionarySnapshot.PLAINTEXT_CORPUS), WORD_LENGTH))
+        {
+            for (String plaintextWord : wordList)
+            {
+                final int wikipediaId = wikipedia.indexOf(plaintextWord);
+                writer.add(plaintextWord,
+                        wikipediaId >= 0 ? wikipedia.count(wikipediaId) : 0,
+                        wikipediaId >= 0 ? WordCorpus.FLAG_IN_WIKIPEDIA : 0);
+            }
+            return new DictionarySnapshot(1, writer.finish(), wikipedia);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.dparsons.wordle;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Both feedback scorers must agree exactly with the reference
+ * {@link FeedbackPattern#score(String, String)}, for every supported word
+ * length and especially for repeated letters.
+ */
+class FeedbackScorersTest
+{
+    // Repeated letters in the guess, the answer, or both.
+    private static final List<String> REPEATED_LETTERS = List.of(
+            "geese", "eerie", "speed", "abide", "allee", "eagle", "sassy", "assay", "llama", "hello",
+            "mamma", "error", "robot", "tooth", "otter", "eeeee", "abbey", "babes", "added", "dread");
+
+    private static final int[] WORD_LENGTHS = { 4, 5, 6, 11 };
+    private static final int RANDOM_WORDS = 1000;
+    // More than the vector scorer copies from mapped columns at a time, and not a multiple of it.
+    private static final int MAPPED_WORDS = 9000;
+    private static final int GUESSES = 100;
+
+    @Test
+    void referenceScoresRepeatedLetters()
+    {
+        // Only as many yellows as the answer has unmatched copies of the letter, left to right.
+        assertEquals("02102", _scores("geese", "eerie"), "geese against eerie");
+        assertEquals("12002", _scores("eerie", "geese"), "eerie against geese");
+        assertEquals("11020", _scores("sassy", "glass"), "sassy against glass");
+        assertEquals("00101", _scores("speed", "abide"), "speed against abide");
+    }
+
+    @Test
+    void scalarScorerAgreesWithReference()
+    {
+        _assertAgreesWithReference(new ScalarFeedbackScorer());
+    }
+
+    @Test
+    void vectorScorerAgreesWithReference()
+    {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "jdk.incubator.vector not available");
+        _assertAgreesWithReference(new VectorFeedbackScorer());
+    }
+
+    @Test
+    void vectorScorerAgreesOnMappedColumns()
+    {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "jdk.incubator.vector not available");
+        final Random random = new Random(7);
+        final List<String> words = new ArrayList<>(REPEATED_LETTERS);
+        while (words.size() < MAPPED_WORDS)
+        {
+            words.add(_randomWord(random, 5));
+        }
+        _assertAgreesWithReference(new VectorFeedbackScorer(), words, _direct(LetterColumns.of(words)));
+    }
+
+    private static void _assertAgreesWithReference(final FeedbackScorer scorer)
+    {
+        final Random random = new Random(42);
+        for (final int wordLength : WORD_LENGTHS)
+        {
+            final List<String> words = new ArrayList<>();
+            if (wordLength == 5)
+            {
+                words.addAll(REPEATED_LETTERS);
+            }
+            while (words.size() < RANDOM_WORDS)
+            {
+                words.add(_randomWord(random, wordLength));
+            }
+
+            // Not a multiple of any vector width, so the scalar tail is covered too.
+            _assertAgreesWithReference(scorer, words, LetterColumns.of(words));
+        }
+    }
+
+    private static void _assertAgreesWithReference(final FeedbackScorer scorer,
+                                                   final List<String> words,
+                                                   final LetterColumns candidates)
+    {
+        final int[] patterns = new int[words.size()];
+        for (int g = 0; g < GUESSES; g++)
+        {
+            final String guess = words.get(g * 7 % words.size());
+            final byte[] encodedGuess = LetterColumns.encode(guess);
+            scorer.score(encodedGuess, candidates, patterns);
+
+            final int target = FeedbackPattern.score(guess, words.get(g));
+            final long[] survivors = new long[(words.size() + 63) / 64];
+            Arrays.fill(survivors, -1L);
+            scorer.retainMatching(encodedGuess, target, candidates, survivors);
+
+            for (int i = 0; i < words.size(); i++)
+            {
+                final int expected = FeedbackPattern.score(guess, words.get(i));
+                final String pair = guess + " against " + words.get(i);
+                assertEquals(expected, patterns[i], pair);
+                assertEquals(expected == target, (survivors[i >>> 6] & (1L << i)) != 0, pair + " retained");
+            }
+        }
+    }
+
+    /**
+     * The same columns in a direct buffer, as they are when mapped from a corpus file.
+     */
+    private static LetterColumns _direct(final LetterColumns columns)
+    {
+        final ByteBuffer direct = ByteBuffer.allocateDirect(columns.size() * columns.wordLength());
+        direct.put(columns.buffer().duplicate());
+        return LetterColumns.view(direct, 0, columns.size(), columns.size(), columns.wordLength());
+    }
+
+    private static String _scores(final String guess, final String answer)
+    {
+        return FeedbackPattern.toScores(FeedbackPattern.score(guess, answer), guess.length());
+    }
+
+    private static String _randomWord(final Random random, final int wordLength)
+    {
+        final char[] letters = new char[wordLength];
+        for (int i = 0; i < letters.length; i++)
+        {
+            // Mostly a-e, so repeated letters are common, with the occasional letter from the rest of the alphabet.
+            letters[i] = (char) ('a' + (random.nextInt(4) == 0 ? random.nextInt(26) : random.nextInt(5)));
+        }
+        return new String(letters);
+    }
+}
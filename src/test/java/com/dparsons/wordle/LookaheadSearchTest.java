@@ -0,0 +1,58 @@
+package com.dparsons.wordle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Every survivor must be a candidate, however it ranks. Sets that none of
+ * the candidates can split, like the -ight family, must still get a finite
+ * value, from trying their words one at a time.
+ */
+class LookaheadSearchTest
+{
+    private static final List<String> IGHT = List.of("light", "might", "night", "right", "sight", "tight", "fight");
+
+    // Shares no letters with any of the -ight words.
+    private static final String[] UNHELPFUL_GUESSES = { "quack" };
+
+    @Test
+    void survivorsRankedBelowTheWidthAreKept()
+    {
+        final List<String> ranked = List.of("crane", "slate", "light", "trace", "might", "audio");
+        final String[] candidates = LookaheadSearch.candidates(ranked, List.of("might", "light"), 3);
+        assertEquals(List.of("crane", "light", "might"), Arrays.asList(candidates));
+    }
+
+    @Test
+    void survivorsAreKeptPastTheWidth()
+    {
+        final List<String> ranked = List.of("crane", "light", "might", "night");
+        final String[] candidates = LookaheadSearch.candidates(ranked, List.of("night", "might", "light"), 2);
+        assertEquals(List.of("light", "might", "night"), Arrays.asList(candidates));
+    }
+
+    @Test
+    void unsplittablePartIsValuedOneByOne()
+    {
+        final List<String> survivors = new ArrayList<>(List.of("quack", "quick"));
+        survivors.addAll(IGHT);
+
+        // quack solves itself, leaves quick alone, and the seven -ight words together.
+        final LookaheadSearch.Result result = LookaheadSearch.search(UNHELPFUL_GUESSES, survivors);
+        assertEquals("quack", result.getGuess());
+        assertEquals(1 + (1.0 / 9) * 1 + (7.0 / 9) * (7 + 1) / 2, result.getExpectedGuesses(), 1e-9);
+    }
+
+    @Test
+    void unsplittableSurvivorsAreGuessedOneByOne()
+    {
+        final LookaheadSearch.Result result = LookaheadSearch.search(UNHELPFUL_GUESSES, IGHT);
+        assertEquals("light", result.getGuess());
+        assertEquals((7 + 1) / 2.0, result.getExpectedGuesses(), 1e-9);
+    }
+}